@@ -0,0 +1,9 @@
+-- SQL for IPL Verification System
+-- Migration: event search order index.
+
+-- Intended to be run once against a database created from an older verification.sql.
+-- Databases created with the current verification.sql already include these changes.
+-- Run migrate-search-names.sql first if the database doesn't have the search_name columns yet.
+
+-- Index for paged event searches, which list the newest events first, then by name and id.
+CREATE INDEX events_search_order ON events (startDate DESC, search_name, event_id);
@@ -0,0 +1,35 @@
+-- SQL for IPL Verification System
+-- Migration: materialized player participation.
+
+-- Intended to be run once against a database created from an older verification.sql.
+-- Databases created with the current verification.sql already include these changes.
+
+-- Every roster entry along with its event's start date, ordered by player and then date, so the events a player
+-- took part in during a window of time are found without joining rosters and events.
+-- Kept up to date by the triggers below, however rosters and events are changed.
+CREATE TABLE participation (
+    player_id INT NOT NULL,
+    startDate TIMESTAMP NOT NULL,
+    event_id INT NOT NULL,
+    team_id INT NOT NULL,
+    PRIMARY KEY (player_id, startDate, event_id, team_id)
+);
+CREATE INDEX participation_event ON participation (event_id, team_id, player_id);
+
+CREATE TRIGGER rosters_participation_insert AFTER INSERT ON rosters REFERENCING NEW AS n FOR EACH ROW
+    INSERT INTO participation (player_id, startDate, event_id, team_id)
+        SELECT n.player_id, e.startDate, n.event_id, n.team_id FROM events e WHERE e.event_id = n.event_id;
+CREATE TRIGGER rosters_participation_delete AFTER DELETE ON rosters REFERENCING OLD AS o FOR EACH ROW
+    DELETE FROM participation WHERE event_id = o.event_id AND team_id = o.team_id AND player_id = o.player_id;
+CREATE TRIGGER rosters_participation_update AFTER UPDATE OF event_id, team_id, player_id ON rosters
+    REFERENCING OLD AS o NEW AS n FOR EACH ROW
+    UPDATE participation SET player_id = n.player_id, event_id = n.event_id, team_id = n.team_id,
+        startDate = (SELECT e.startDate FROM events e WHERE e.event_id = n.event_id)
+        WHERE event_id = o.event_id AND team_id = o.team_id AND player_id = o.player_id;
+CREATE TRIGGER events_participation_update AFTER UPDATE OF startDate ON events
+    REFERENCING OLD AS o NEW AS n FOR EACH ROW
+    UPDATE participation SET startDate = n.startDate WHERE event_id = n.event_id;
+
+-- Fill the table from the existing roster entries.
+INSERT INTO participation (player_id, startDate, event_id, team_id)
+    SELECT r.player_id, e.startDate, r.event_id, r.team_id FROM rosters r INNER JOIN events e ON r.event_id = e.event_id;
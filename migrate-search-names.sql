@@ -0,0 +1,16 @@
+-- SQL for IPL Verification System
+-- Migration: searchable lower-cased name columns.
+
+-- Intended to be run once against a database created with an older copy of verification.sql.
+-- Databases created with the current verification.sql already include these changes.
+-- Existing data is kept, the new columns are filled in from each row's current name.
+
+-- Lower-cased copies of each name, kept in sync by the database.
+ALTER TABLE events ADD COLUMN search_name varchar(50) GENERATED ALWAYS AS (LOWER(name));
+ALTER TABLE eventTeams ADD COLUMN search_name varchar(50) GENERATED ALWAYS AS (LOWER(name));
+ALTER TABLE rosters ADD COLUMN search_name varchar(50) GENERATED ALWAYS AS (LOWER(name));
+
+-- Indexes for case-insensitive prefix searches by name, including the primary key for paged searches.
+CREATE INDEX events_search_name ON events (search_name, event_id);
+CREATE INDEX eventTeams_search_name ON eventTeams (search_name, event_id, team_id);
+CREATE INDEX rosters_search_name ON rosters (search_name, event_id, team_id, player_id);
@@ -0,0 +1,8 @@
+-- SQL for IPL Verification System
+-- Migration: event start date index.
+
+-- Intended to be run once against a database created from an older verification.sql.
+-- Databases created with the current verification.sql already include these changes.
+
+-- Index for finding events by start date, such as a player's participation in recent events.
+CREATE INDEX events_startDate ON events (startDate, event_id);
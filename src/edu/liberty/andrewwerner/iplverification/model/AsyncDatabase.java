@@ -0,0 +1,344 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Class AsyncDatabase
+ * Runs the methods of an IDatabase on a dedicated pool of worker threads.
+ * The pool is bounded both in threads and in queued work, so a burst of requests can't
+ * exhaust the database's connections or memory. Requests that don't fit in the queue fail immediately.
+ * Cancelling the future of a read cancels the query it is running through the database's connection pool,
+ * like the window does for the loads it cancels.
+ *
+ * @author Andrew Werner
+ */
+public final class AsyncDatabase implements IAsyncDatabase, AutoCloseable {
+    private static final int QUEUE_CAPACITY = 256;
+    // How long closing waits for started and queued requests, so a stuck request can't stop the program exiting
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final IDatabase database;
+    private final ThreadPoolExecutor executor;
+    private VerificationWriteBehind writeBehind = null;
+
+    /**
+     * Create a new asynchronous wrapper around a database.
+     * Only one instance of this class needs to exist at any given time.
+     * @param database the database to run requests against. Must be safe to use from several threads.
+     * @param threads the number of requests that can run at once.
+     *                There is no benefit to this being higher than the database's number of connections.
+     */
+    public AsyncDatabase(IDatabase database, int threads) {
+        this.database = database;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "database-worker-" + count.incrementAndGet());
+                // Don't keep the program running once the window is closed
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Apply single team and player verification changes to their objects immediately and write them
+     * to the database in the background, in batches. Must be called before this object is used.
+     * @param delayMillis how long to wait after a change before writing it, to batch changes made close together.
+     */
+    public void enableWriteBehind(long delayMillis) {
+        this.writeBehind = new VerificationWriteBehind(this.database, delayMillis);
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<IEvent>> searchEvents(String query) {
+        return this.submitRead(() -> this.database.searchEvents(query));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<ITeam>> searchTeams(String query) {
+        return this.submitRead(() -> this.database.searchTeams(query));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<IPlayer>> searchPlayers(String query) {
+        return this.submitRead(() -> this.database.searchPlayers(query));
+    }
+
+    @Override
+    public CompletableFuture<Page<IEvent>> searchEvents(String query, int pageSize, String continuationToken) {
+        return this.submitRead(() -> this.database.searchEvents(query, pageSize, continuationToken));
+    }
+
+    @Override
+    public CompletableFuture<Page<ITeam>> searchTeams(String query, int pageSize, String continuationToken) {
+        return this.submitRead(() -> this.database.searchTeams(query, pageSize, continuationToken));
+    }
+
+    @Override
+    public CompletableFuture<Page<IPlayer>> searchPlayers(String query, int pageSize, String continuationToken) {
+        return this.submitRead(() -> this.database.searchPlayers(query, pageSize, continuationToken));
+    }
+
+    @Override
+    public CompletableFuture<Integer> countEvents(String query, int limit) {
+        return this.submitRead(() -> this.database.countEvents(query, limit));
+    }
+
+    @Override
+    public CompletableFuture<Integer> countTeams(String query, int limit) {
+        return this.submitRead(() -> this.database.countTeams(query, limit));
+    }
+
+    @Override
+    public CompletableFuture<Integer> countPlayers(String query, int limit) {
+        return this.submitRead(() -> this.database.countPlayers(query, limit));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<ITeam>> getEventTeams(IEvent event, String query, VerificationStatus status,
+                                                             boolean includeDropped) {
+        return this.submitRead(() -> this.database.getEventTeams(event, query, status, includeDropped));
+    }
+
+    @Override
+    public CompletableFuture<Page<ITeam>> getEventTeams(IEvent event, String query, VerificationStatus status,
+                                                        boolean includeDropped, int pageSize,
+                                                        String continuationToken) {
+        return this.submitRead(() -> this.database.getEventTeams(event, query, status, includeDropped,
+            pageSize, continuationToken));
+    }
+
+    @Override
+    public CompletableFuture<Integer> countEventTeams(IEvent event, String query, VerificationStatus status,
+                                                      boolean includeDropped) {
+        return this.submitRead(() -> this.database.countEventTeams(event, query, status, includeDropped));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<IPlayer>> getTeamMembers(ITeam team) {
+        return this.submitRead(() -> this.database.getTeamMembers(team));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<IPlayer>> getRecentParticipationFor(IPlayer player) {
+        return this.submitRead(() -> this.database.getRecentParticipationFor(player));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<IPlayer>> getRecentParticipationFor(IPlayer player, Period window,
+                                                                           String eventQuery) {
+        return this.submitRead(() -> this.database.getRecentParticipationFor(player, window, eventQuery));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<ITeam>> populateRosters(ArrayList<ITeam> teams) {
+        return this.submitRead(() -> {
+            this.database.populateRosters(teams);
+            return teams;
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> updateTeamVerification(ITeam team, VerificationStatus status, String note) {
+        if (this.writeBehind != null) {
+            return this.writeBehind.updateTeamVerification(team, status, note);
+        }
+
+        return this.submit(() -> this.database.updateTeamVerification(team, status, note));
+    }
+
+    @Override
+    public CompletableFuture<String> updateTeamVerification(ITeam team, VerificationStatus status, String note,
+                                                            boolean cascade) {
+        return this.submitWrite(() -> this.database.updateTeamVerification(team, status, note, cascade));
+    }
+
+    @Override
+    public CompletableFuture<String> updatePlayerVerification(IPlayer player, VerificationStatus status, String note) {
+        if (this.writeBehind != null) {
+            return this.writeBehind.updatePlayerVerification(player, status, note);
+        }
+
+        return this.submit(() -> this.database.updatePlayerVerification(player, status, note));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates) {
+        return this.submitWrite(() -> this.database.updateTeamVerifications(updates));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates,
+                                                                        boolean cascade) {
+        return this.submitWrite(() -> this.database.updateTeamVerifications(updates, cascade));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> updatePlayerVerifications(
+            ArrayList<VerificationUpdate<IPlayer>> updates) {
+        return this.submitWrite(() -> this.database.updatePlayerVerifications(updates));
+    }
+
+    @Override
+    public CompletableFuture<String> fetchEventRegistrants(IEvent event) {
+        return this.submit(() -> this.database.fetchEventRegistrants(event));
+    }
+
+    @Override
+    public CompletableFuture<String> fetchNewEvents() {
+        return this.submit(this.database::fetchNewEvents);
+    }
+
+    @Override
+    public boolean isWriteBehind() {
+        return this.writeBehind != null;
+    }
+
+    /**
+     * Stop accepting new requests. Requests already started or queued are waited for, up to a timeout,
+     * and verification changes waiting to be written are written before this returns.
+     * The database can be closed once this returns.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Database requests still running after " + CLOSE_TIMEOUT_SECONDS +
+                    " seconds, closing without them.");
+            }
+        } catch (InterruptedException e) {
+            // Still write the queued changes below, but leave the interrupt for the caller
+            Thread.currentThread().interrupt();
+        }
+
+        if (this.writeBehind != null) {
+            this.writeBehind.close();
+        }
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Run a task that writes verification changes on the worker pool, after any changes waiting to be written.
+     * @param task the task to run.
+     * @return a future completing with the task's result, or exceptionally if the task failed or
+     * could not be queued.
+     * @param <T> the type of the task's result.
+     */
+    private <T> CompletableFuture<T> submitWrite(Supplier<T> task) {
+        if (this.writeBehind == null) {
+            return this.submit(task);
+        }
+
+        // Write any queued changes first, so they can't overwrite this one
+        VerificationWriteBehind writeBehind = this.writeBehind;
+        return this.submit(() -> writeBehind.runAfterPending(task));
+    }
+
+    /**
+     * Run a task that reads from the database on the worker pool.
+     * Cancelling the returned future stops the task from starting, or cancels the query it is running if it has.
+     * @param task the task to run.
+     * @return a future completing with the task's result, or exceptionally if the task failed or
+     * could not be queued.
+     * @param <T> the type of the task's result.
+     */
+    private <T> CompletableFuture<T> submitRead(Supplier<T> task) {
+        Read<T> read = new Read<>(task);
+        try {
+            this.executor.execute(read);
+        } catch (RejectedExecutionException e) {
+            read.result.completeExceptionally(e);
+        }
+
+        return read.result;
+    }
+
+    /**
+     * Run a task on the worker pool.
+     * @param task the task to run.
+     * @return a future completing with the task's result, or exceptionally if the task failed or
+     * could not be queued.
+     * @param <T> the type of the task's result.
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, this.executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Class Read
+     * A read submitted to the worker pool, which cancels its query when its future is cancelled.
+     * @param <T> the type of the read's result.
+     */
+    private final class Read<T> implements Runnable {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> result;
+        private Thread thread = null;
+
+        /**
+         * Creates a new Read.
+         * @param task the task to run.
+         */
+        Read(Supplier<T> task) {
+            this.task = task;
+            this.result = new CompletableFuture<>();
+            // Run by whichever thread cancels the future
+            this.result.whenComplete((value, error) -> {
+                if (this.result.isCancelled()) {
+                    this.cancel();
+                }
+            });
+        }
+
+        /**
+         * Run the task unless its future was already cancelled. Called on a worker thread.
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (this.result.isDone()) {
+                    return;
+                }
+
+                this.thread = Thread.currentThread();
+            }
+
+            try {
+                this.result.complete(this.task.get());
+            } catch (RuntimeException e) {
+                this.result.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    this.thread = null;
+                }
+
+                // Clear any interrupt left over from being cancelled, the thread is reused
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * Cancel the query the task is running, if it is running.
+         */
+        private synchronized void cancel() {
+            if (this.thread != null) {
+                AsyncDatabase.this.database.cancelQueries(this.thread);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+/**
+ * Class CacheStatistics
+ * An immutable snapshot of a cache's counters at the time it was taken.
+ * Used to size the model's caches based on how they behave under real load.
+ */
+public final class CacheStatistics {
+    private final String name;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+    private final long coalesced;
+    private final int size;
+    private final int capacity;
+
+    /**
+     * Creates a new CacheStatistics object. Can only be done within the model package.
+     * @param name human-readable name of the cache these statistics describe.
+     * @param hits number of lookups that were served from the cache.
+     * @param misses number of lookups that were not found in the cache.
+     * @param evictions number of entries removed to make room for new entries.
+     * @param size number of entries currently in the cache.
+     * @param capacity maximum number of entries the cache will hold.
+     */
+    CacheStatistics(String name, long hits, long misses, long evictions, int size, int capacity) {
+        this(name, hits, misses, evictions, 0, 0, 0, size, capacity);
+    }
+
+    /**
+     * Creates a new CacheStatistics object for a cache whose entries can also expire or be invalidated,
+     * and whose lookups can wait for an entry another lookup is already loading.
+     * Can only be done within the model package.
+     * @param name human-readable name of the cache these statistics describe.
+     * @param hits number of lookups that were served from the cache.
+     * @param misses number of lookups that were not found in the cache, including expired entries.
+     * @param evictions number of entries removed to make room for new entries.
+     * @param expirations number of entries removed because they were too old to use.
+     * @param invalidations number of entries removed because the data they were built from changed.
+     * @param coalesced number of lookups that shared an entry being loaded by another lookup instead of loading it.
+     * @param size number of entries currently in the cache.
+     * @param capacity maximum number of entries the cache will hold.
+     */
+    CacheStatistics(String name, long hits, long misses, long evictions, long expirations, long invalidations,
+                    long coalesced, int size, int capacity) {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.coalesced = coalesced;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the name of the cache these statistics describe.
+     * @return the name of the cache.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the number of lookups that were served from the cache.
+     * @return the number of cache hits.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Get the number of lookups that were not found in the cache.
+     * @return the number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Get the number of entries removed to make room for new entries.
+     * @return the number of evictions.
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Get the number of entries removed because they were too old to use.
+     * @return the number of expirations, always 0 for caches whose entries don't expire.
+     */
+    public long getExpirations() {
+        return this.expirations;
+    }
+
+    /**
+     * Get the number of entries removed because the data they were built from changed.
+     * @return the number of invalidations, always 0 for caches that aren't invalidated this way.
+     */
+    public long getInvalidations() {
+        return this.invalidations;
+    }
+
+    /**
+     * Get the number of lookups that shared an entry being loaded by another lookup instead of loading it.
+     * These are counted as neither hits nor misses.
+     * @return the number of coalesced lookups, always 0 for caches that don't share loads.
+     */
+    public long getCoalesced() {
+        return this.coalesced;
+    }
+
+    /**
+     * Get the number of entries currently in the cache.
+     * @return the current size of the cache.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Get the maximum number of entries the cache will hold.
+     * @return the capacity of the cache.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Get the fraction of lookups that were served from the cache.
+     * @return the hit ratio between 0 and 1, or 0 if no lookups have been made.
+     */
+    public double getHitRatio() {
+        long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0 : (double) this.hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        String removals = this.expirations == 0 && this.invalidations == 0 && this.coalesced == 0 ? ""
+                : String.format(", %d expirations, %d invalidations, %d coalesced",
+                        this.expirations, this.invalidations, this.coalesced);
+        return String.format("%s: %d hits, %d misses (%.1f%%), %d evictions%s, %d/%d entries",
+                this.name, this.hits, this.misses, this.getHitRatio() * 100, this.evictions, removals,
+                this.size, this.capacity);
+    }
+}
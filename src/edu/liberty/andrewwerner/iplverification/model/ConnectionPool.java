@@ -0,0 +1,229 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class ConnectionPool
+ * A small pool of database connections, so concurrent readers and writers each get a connection of their own.
+ * The pool keeps at least its minimum number of connections open and opens more on demand up to its maximum.
+ * Once every connection is in use, borrowers wait until one is returned or the borrow timeout expires.
+ * A thread may borrow again while it still holds a connection, such as when a roster is loaded while a stream
+ * is being read, and gets a connection of its own so the two don't share statements or transactions.
+ * Such nested borrows never wait, as the connection they would wait for is their own thread's,
+ * so if every connection is in use one is opened past the maximum and closed once it is returned.
+ * Idle connections are validated before being handed out and replaced if they are no longer usable.
+ */
+final class ConnectionPool implements AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxConnections;
+    private final long borrowTimeoutMillis;
+    private final int statementCacheCapacity;
+    private final ArrayDeque<PooledConnection> idle;
+    private final ArrayList<PooledConnection> all;
+    // The connections each thread holds, most recently borrowed first
+    private final HashMap<Thread, ArrayDeque<PooledConnection>> borrowers;
+    private boolean closed = false;
+
+    /**
+     * Creates a new ConnectionPool and opens its minimum number of connections.
+     * @param url the JDBC url of the database.
+     * @param user the database user.
+     * @param password the database user's password.
+     * @param minConnections number of connections to open immediately and keep open.
+     * @param maxConnections maximum number of connections open at once.
+     * @param borrowTimeoutMillis how long to wait for a connection to be returned when all are in use.
+     * @param statementCacheCapacity maximum number of prepared statements to keep open on each connection.
+     * @throws SQLException if the initial connections can't be opened.
+     */
+    ConnectionPool(String url, String user, String password, int minConnections, int maxConnections,
+                   long borrowTimeoutMillis, int statementCacheCapacity) throws SQLException {
+        if (minConnections < 0 || maxConnections < 1 || minConnections > maxConnections) {
+            throw new IllegalArgumentException("Invalid connection pool size: " + minConnections + " to " + maxConnections);
+        }
+
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxConnections = maxConnections;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.statementCacheCapacity = statementCacheCapacity;
+        this.idle = new ArrayDeque<>();
+        this.all = new ArrayList<>();
+        this.borrowers = new HashMap<>();
+
+        for (int i = 0; i < minConnections; i++) {
+            this.idle.push(this.open());
+        }
+    }
+
+    /**
+     * Borrow a connection from the pool, waiting for one to be returned if all are in use.
+     * The connection must be closed once the caller is done with it to return it to the pool.
+     * @return a valid connection with autocommit enabled.
+     * @throws SQLException if no connection became available before the borrow timeout, or a new one can't be opened.
+     */
+    PooledConnection borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.borrowTimeoutMillis);
+
+        synchronized (this) {
+            while (true) {
+                if (this.closed) {
+                    throw new SQLException("Connection pool is closed.");
+                }
+
+                PooledConnection connection = this.idle.poll();
+                if (connection != null) {
+                    if (this.isValid(connection)) {
+                        return this.lend(connection);
+                    }
+
+                    // Broken connection, drop it and try again
+                    this.all.remove(connection);
+                    connection.discard();
+                    continue;
+                }
+
+                if (this.all.size() < this.maxConnections || this.borrowers.containsKey(Thread.currentThread())) {
+                    return this.lend(this.open());
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SQLException("Timed out waiting for a database connection.");
+                }
+
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool. Any transaction left open is rolled back.
+     * @param connection the connection to return.
+     */
+    void release(PooledConnection connection) {
+        boolean reusable;
+        try {
+            if (!connection.getConnection().getAutoCommit()) {
+                connection.getConnection().rollback();
+                connection.getConnection().setAutoCommit(true);
+            }
+            reusable = true;
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        synchronized (this) {
+            this.borrowers.values().removeIf(held -> held.remove(connection) && held.isEmpty());
+            // Connections opened past the maximum for nested borrows aren't kept
+            if (reusable && !this.closed && this.all.size() <= this.maxConnections) {
+                this.idle.push(connection);
+            } else {
+                this.all.remove(connection);
+                connection.discard();
+            }
+
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Cancel whatever a thread is doing with the connection it borrowed most recently, if any.
+     * The database is asked to cancel the running statement. If it can't, which is the case for embedded Derby,
+     * the thread is interrupted instead. Derby checks for interrupts while running a statement and aborts it
+     * with an SQLException, closing the connection, which is then discarded when it is returned to the pool.
+     * @param thread the thread to cancel.
+     */
+    synchronized void cancel(Thread thread) {
+        ArrayDeque<PooledConnection> held = this.borrowers.get(thread);
+        if (held != null && held.peek().cancel()) {
+            return;
+        }
+
+        thread.interrupt();
+    }
+
+    /**
+     * Get statistics for the prepared statement caches of every open connection, combined.
+     * @return the combined statement cache statistics.
+     */
+    synchronized CacheStatistics getStatementCacheStatistics() {
+        long hits = 0, misses = 0, evictions = 0;
+        int size = 0, capacity = 0;
+        for (PooledConnection connection : this.all) {
+            CacheStatistics statistics = connection.getStatementCache().getStatistics();
+            hits += statistics.getHits();
+            misses += statistics.getMisses();
+            evictions += statistics.getEvictions();
+            size += statistics.getSize();
+            capacity += statistics.getCapacity();
+        }
+
+        return new CacheStatistics("statements", hits, misses, evictions, size, capacity);
+    }
+
+    /**
+     * Close every idle connection and stop handing out connections.
+     * Connections still borrowed are closed as they are returned.
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        for (PooledConnection connection : this.idle) {
+            this.all.remove(connection);
+            connection.discard();
+        }
+
+        this.idle.clear();
+        this.notifyAll();
+    }
+
+    /**
+     * Record a connection as borrowed by the current thread. Must be called while holding this object's monitor.
+     * @param connection the connection being handed out.
+     * @return the same connection.
+     */
+    private PooledConnection lend(PooledConnection connection) {
+        this.borrowers.computeIfAbsent(Thread.currentThread(), thread -> new ArrayDeque<>()).push(connection);
+        return connection;
+    }
+
+    /**
+     * Open a new connection and add it to the pool's list of connections.
+     * @return the new connection.
+     * @throws SQLException if the connection can't be opened.
+     */
+    private synchronized PooledConnection open() throws SQLException {
+        PooledConnection connection = new PooledConnection(this,
+                DriverManager.getConnection(this.url, this.user, this.password), this.statementCacheCapacity);
+        this.all.add(connection);
+        return connection;
+    }
+
+    /**
+     * Check if an idle connection can still be used.
+     * @param connection the connection to check.
+     * @return true if the connection is usable.
+     */
+    private boolean isValid(PooledConnection connection) {
+        try {
+            return connection.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -1,73 +1,160 @@
 package edu.liberty.andrewwerner.iplverification.model;
 
-import java.util.Arrays;
-
 /**
  * Class DataKey
  * Represents a full key used by the database.
  * Keys consist of three sections in the form of E:T:P and at least one must be filled.
  * Primary keys (representing 1 row in the applicable table in the database) are E::, E:T:, and E:T:P keys.
+ * Every id is an INT in the database, so keys hold them as ints along with a bit for each filled section.
+ * The full id is only built as a string when asked for, and keys with the same ids are equal,
+ * so keys can be used directly in hash maps.
  *
  * @author Andrew Werner
  */
 final class DataKey implements IDataKey {
-    private static final String[] primaryKeyFormats = {"E::", "E:T:", "E:T:P"};
-    private final String eventId;
-    private final String teamId;
-    private final String playerId;
-    private final String fullId;
-    private final String idFormat;
+    // Bits of the format, one for each filled section
+    private static final int EVENT = 4;
+    private static final int TEAM = 2;
+    private static final int PLAYER = 1;
+    // The format string of each combination of bits, so formats are never built
+    private static final String[] FORMATS = {"::", "::P", ":T:", ":T:P", "E::", "E::P", "E:T:", "E:T:P"};
+
+    private final int format;
+    private final int eventId;
+    private final int teamId;
+    private final int playerId;
+    private final int hash;
+    // Built on first use, a race only builds an equal string twice
+    private String fullId;
 
     public DataKey(String eventId, String teamId, String playerId) {
-        this.eventId = eventId == null ? "" : eventId;
-        this.teamId = teamId == null ? "" : teamId;
-        this.playerId = playerId == null ? "" : playerId;
+        this(format(eventId, teamId, playerId), parseId(eventId), parseId(teamId), parseId(playerId));
+    }
 
-        if (this.eventId.equals(this.teamId) && this.eventId.equals(this.playerId) && this.eventId.equals("")) {
+    /**
+     * Creates a new DataKey from ids read from the database.
+     * @param format the bits of each filled section.
+     * @param eventId the event id, ignored if the section is empty.
+     * @param teamId the team id, ignored if the section is empty.
+     * @param playerId the player id, ignored if the section is empty.
+     */
+    private DataKey(int format, int eventId, int teamId, int playerId) {
+        if (format == 0) {
             throw new IllegalArgumentException("Error creating DataKey: All three IDs cannot be empty.");
         }
 
-        this.idFormat = String.format("%s:%s:%s",
-                this.eventId.equals("") ? "" : "E",
-                this.teamId.equals("") ? "" : "T",
-                this.playerId.equals("") ? "" : "P");
-        this.fullId = String.format("%s:%s:%s",
-                this.eventId, this.teamId, this.playerId);
+        this.format = format;
+        this.eventId = (format & EVENT) == 0 ? 0 : eventId;
+        this.teamId = (format & TEAM) == 0 ? 0 : teamId;
+        this.playerId = (format & PLAYER) == 0 ? 0 : playerId;
+        this.hash = ((this.eventId * 31 + this.teamId) * 31 + this.playerId) * 31 + format;
+    }
+
+    /**
+     * Creates the primary key of an event.
+     * @param eventId the event id.
+     * @return the E:: key.
+     */
+    static DataKey ofEvent(int eventId) {
+        return new DataKey(EVENT, eventId, 0, 0);
+    }
+
+    /**
+     * Creates the primary key of a team.
+     * @param eventId the event id.
+     * @param teamId the team id.
+     * @return the E:T: key.
+     */
+    static DataKey ofTeam(int eventId, int teamId) {
+        return new DataKey(EVENT | TEAM, eventId, teamId, 0);
+    }
+
+    /**
+     * Creates the primary key of a roster entry.
+     * @param eventId the event id.
+     * @param teamId the team id.
+     * @param playerId the player id.
+     * @return the E:T:P key.
+     */
+    static DataKey ofPlayer(int eventId, int teamId, int playerId) {
+        return new DataKey(EVENT | TEAM | PLAYER, eventId, teamId, playerId);
+    }
+
+    /**
+     * Get a DataKey with the same ids as any key.
+     * @param key the key to convert.
+     * @return the key itself if it is a DataKey, otherwise a new DataKey with its ids.
+     */
+    static DataKey of(IDataKey key) {
+        return key instanceof DataKey ? (DataKey) key
+                : new DataKey(key.getEventId(), key.getTeamId(), key.getPlayerId());
     }
 
     @Override
     public String getEventId() {
-        return eventId;
+        return (this.format & EVENT) == 0 ? "" : Integer.toString(this.eventId);
     }
 
     @Override
     public String getTeamId() {
-        return teamId;
+        return (this.format & TEAM) == 0 ? "" : Integer.toString(this.teamId);
     }
 
     @Override
     public String getPlayerId() {
-        return playerId;
+        return (this.format & PLAYER) == 0 ? "" : Integer.toString(this.playerId);
+    }
+
+    /**
+     * Get the key's event ID as stored in the database.
+     * @return the event ID, or 0 if the key has none.
+     */
+    int getEventIdValue() {
+        return this.eventId;
+    }
+
+    /**
+     * Get the key's team ID as stored in the database.
+     * @return the team ID, or 0 if the key has none.
+     */
+    int getTeamIdValue() {
+        return this.teamId;
+    }
+
+    /**
+     * Get the key's player ID as stored in the database.
+     * @return the player ID, or 0 if the key has none.
+     */
+    int getPlayerIdValue() {
+        return this.playerId;
     }
 
     @Override
     public String getFullId() {
-        return fullId;
+        if (this.fullId == null) {
+            this.fullId = this.getEventId() + ":" + this.getTeamId() + ":" + this.getPlayerId();
+        }
+
+        return this.fullId;
     }
 
     @Override
     public String getIdFormat() {
-        return this.idFormat;
+        return FORMATS[this.format];
     }
 
     @Override
     public boolean hasMatchingFormat(IDataKey key) {
+        if (key instanceof DataKey) {
+            return this.format == ((DataKey) key).format;
+        }
+
         return this.getIdFormat().equals(key.getIdFormat());
     }
 
     @Override
     public boolean isPrimaryKey() {
-        return Arrays.stream(primaryKeyFormats).anyMatch(f -> f.equals(this.getIdFormat()));
+        return this.format == EVENT || this.format == (EVENT | TEAM) || this.format == (EVENT | TEAM | PLAYER);
     }
 
     @Override
@@ -76,17 +163,16 @@ final class DataKey implements IDataKey {
             throw new IllegalStateException("Cannot elevate a non-primary key");
         }
 
-        final String format = this.getIdFormat();
         if (level.equals("TEAM")) {
-            if (format.contains("P")) {
-                return new DataKey(this.getEventId(), this.getTeamId(), null);
+            if ((this.format & PLAYER) != 0) {
+                return ofTeam(this.eventId, this.teamId);
             } else {
                 // Current object is OK, either is TEAM or EVENT
                 return this;
             }
         } else if (level.equals("EVENT")) {
-            if (format.contains("T") || format.contains("P")) {
-                return new DataKey(this.getEventId(), null, null);
+            if (this.format != EVENT) {
+                return ofEvent(this.eventId);
             } else {
                 // Current object is OK
                 return this;
@@ -97,8 +183,92 @@ final class DataKey implements IDataKey {
         }
     }
 
+    /**
+     * Reduces this key to the sections filled in another key's format.
+     * For example, the key 1:2:3 reduced to the format ::P is ::3.
+     * @param key a key with the format to reduce to.
+     * @return the reduced key.
+     */
+    DataKey reduceTo(DataKey key) {
+        return key.format == this.format ? this
+                : new DataKey(key.format & this.format, this.eventId, this.teamId, this.playerId);
+    }
+
+    /**
+     * Determines if a key is this primary key, or the key of an object nested below it.
+     * For example, the team 1:2: contains itself and the players 1:2:P, but not the team 1:20:.
+     * @param key the key to check.
+     * @return true if the key is this key or below it, false if not.
+     */
+    boolean contains(DataKey key) {
+        return (key.format & this.format) == this.format
+                && ((this.format & EVENT) == 0 || key.eventId == this.eventId)
+                && ((this.format & TEAM) == 0 || key.teamId == this.teamId)
+                && ((this.format & PLAYER) == 0 || key.playerId == this.playerId);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof DataKey)) {
+            return false;
+        }
+
+        DataKey key = (DataKey) other;
+        return this.hash == key.hash && this.format == key.format && this.eventId == key.eventId
+                && this.teamId == key.teamId && this.playerId == key.playerId;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
     @Override
     public String toString() {
         return this.getFullId();
     }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Get the bits of each filled section of a key given as strings.
+     * @param eventId the event id, null or empty if not filled.
+     * @param teamId the team id, null or empty if not filled.
+     * @param playerId the player id, null or empty if not filled.
+     * @return the format bits.
+     */
+    private static int format(String eventId, String teamId, String playerId) {
+        return (isEmpty(eventId) ? 0 : EVENT) | (isEmpty(teamId) ? 0 : TEAM) | (isEmpty(playerId) ? 0 : PLAYER);
+    }
+
+    /**
+     * Parse one section of a key given as a string.
+     * @param id the id, null or empty if not filled.
+     * @return the id, or 0 if not filled.
+     */
+    private static int parseId(String id) {
+        if (isEmpty(id)) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error creating DataKey: \"" + id + "\" is not a valid ID.", e);
+        }
+    }
+
+    /**
+     * Determines if a section of a key given as a string is empty.
+     * @param id the id.
+     * @return true if the id is null or empty.
+     */
+    private static boolean isEmpty(String id) {
+        return id == null || id.isEmpty();
+    }
 }
@@ -2,10 +2,19 @@ package edu.liberty.andrewwerner.iplverification.model;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.time.Period;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Class Database
@@ -14,8 +23,74 @@ import java.util.stream.Collectors;
  * @author Andrew Werner
  */
 public final class Database implements IDatabase {
+    private static final int DEFAULT_OBJECT_CACHE_CAPACITY = 16384;
+    private static final int DEFAULT_MIN_CONNECTIONS = 1;
+    private static final int DEFAULT_MAX_CONNECTIONS = 4;
+    private static final long BORROW_TIMEOUT_MILLIS = 30000;
+    private static final int STATEMENT_CACHE_CAPACITY = 128;
+    // Keys found by a name index are loaded in batches, to keep the IN lists of each query reasonably short
+    private static final int INDEXED_KEY_BATCH_SIZE = 512;
+    // How far back getRecentParticipationFor looks when no window is given
+    private static final Period RECENT_PARTICIPATION_WINDOW = Period.ofMonths(3);
+    // Sort columns of paged searches, matching an index of each table so pages are read without sorting.
+    // Events are listed newest first, as they are everywhere else, teams and players by name.
+    private static final String[] EVENT_SEARCH_ORDER = {"e.startDate DESC", "e.search_name", "e.event_id"};
+    private static final String[] TEAM_SEARCH_ORDER = {"et.search_name", "et.event_id", "et.team_id"};
+    private static final String[] PLAYER_SEARCH_ORDER = {"r.search_name", "r.event_id", "r.team_id", "r.player_id"};
+    // Sort columns of event team listings, the order teams are displayed in
+    private static final String[] EVENT_TEAM_ORDER = {"et.reg_order", "et.team_id"};
+    // Order players are listed in on a roster
+    private static final String ROSTER_ORDER = "r.name, r.player_id";
+    // Order a player's participation is listed in, the order of event searches, then the order of each event's teams
+    private static final String PARTICIPATION_ORDER = "e.startDate DESC, e.search_name, e.event_id, et.reg_order, " +
+        "et.team_id";
+    // Columns read when building objects, aliased so the tables can be joined without name clashes
+    private static final String EVENT_COLUMNS = "e.event_id, e.remote_id AS event_remote_id, e.url AS event_url, " +
+        "e.name AS event_name, e.startDate, e.teamCount";
+    private static final String TEAM_COLUMNS = "et.team_id, t.remote_id AS team_remote_id, t.url AS team_url, " +
+        "et.name AS team_name, et.reg_order, et.dropped AS team_dropped, " +
+        "et.verification_status AS team_verification_status, et.verification_note AS team_verification_note";
+    private static final String PLAYER_COLUMNS = "r.player_id, p.remote_id AS player_remote_id, p.url AS player_url, " +
+        "r.name AS player_name, r.dropped AS player_dropped, " +
+        "r.verification_status AS player_verification_status, r.verification_note AS player_verification_note";
+    // Queries reading events, teams along with their events, and players along with their teams and events
+    private static final String EVENT_QUERY = "SELECT " + EVENT_COLUMNS + " FROM events e ";
+    private static final String TEAM_QUERY = "SELECT " + EVENT_COLUMNS + ", " + TEAM_COLUMNS + " FROM eventTeams et " +
+        "INNER JOIN teams t ON et.team_id = t.team_id " +
+        "INNER JOIN events e ON et.event_id = e.event_id ";
+    private static final String PLAYER_JOINS = "INNER JOIN players p ON r.player_id = p.player_id " +
+        "INNER JOIN eventTeams et ON r.event_id = et.event_id AND r.team_id = et.team_id " +
+        "INNER JOIN teams t ON r.team_id = t.team_id " +
+        "INNER JOIN events e ON r.event_id = e.event_id ";
+    private static final String PLAYER_QUERY = "SELECT " + EVENT_COLUMNS + ", " + TEAM_COLUMNS + ", " + PLAYER_COLUMNS +
+        " FROM rosters r " + PLAYER_JOINS;
+    // Reads whole rosters of teams. Given a single event id, Derby otherwise starts from the event's teams and hashes
+    // its whole roster table range, which takes seconds; starting from rosters looks each roster up by its index.
+    private static final String ROSTER_QUERY = "SELECT " + EVENT_COLUMNS + ", " + TEAM_COLUMNS + ", " + PLAYER_COLUMNS +
+        " FROM --DERBY-PROPERTIES joinOrder=FIXED\n rosters r " + PLAYER_JOINS;
+    // Reads players found through the participation table (aliased pa), which is ordered by player and start date
+    private static final String PARTICIPATION_QUERY = "SELECT " + EVENT_COLUMNS + ", " + TEAM_COLUMNS + ", " +
+        PLAYER_COLUMNS + " FROM participation pa " +
+        "INNER JOIN rosters r ON pa.event_id = r.event_id AND pa.team_id = r.team_id AND pa.player_id = r.player_id " +
+        PLAYER_JOINS;
+    // Streams remember up to this many read events and teams, so nearby rows share them without using more
+    // memory the longer the stream is
+    private static final int STREAM_PARENT_CAPACITY = 1024;
+    // Results of searches and listings kept for navigating back to a view, and how long each is used for
+    private static final int QUERY_CACHE_CAPACITY = 256;
+    private static final long QUERY_CACHE_TIME_TO_LIVE_MILLIS = 60000;
+
     private final APIConnector api;
-    private final Connection connection;
+    private final ConnectionPool pool;
+    private final ObjectCache<IEvent> eventCache;
+    private final ObjectCache<ITeam> teamCache;
+    private final ObjectCache<IPlayer> playerCache;
+    private final QueryCache queryCache;
+    private final AtomicInteger nameIndexVersion = new AtomicInteger();
+    private volatile boolean nameIndexEnabled = false;
+    private volatile PrefixIndex eventIndex = null;
+    private volatile PrefixIndex teamIndex = null;
+    private volatile PrefixIndex playerIndex = null;
 
     /**
      * Create a new database object. Will initiate a connection to the system's database.
@@ -23,10 +98,37 @@ public final class Database implements IDatabase {
      * @param api the bracket website API connector for obtaining remote information.
      */
     public Database(APIConnector api) {
+        this(api, DEFAULT_OBJECT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Create a new database object. Will initiate a connection to the system's database.
+     * Only one instance of this class needs to exist at any given time.
+     * @param api the bracket website API connector for obtaining remote information.
+     * @param objectCacheCapacity the maximum number of events, teams, and players (each) kept in memory.
+     */
+    public Database(APIConnector api, int objectCacheCapacity) {
+        this(api, objectCacheCapacity, DEFAULT_MIN_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Create a new database object. Will initiate a pool of connections to the system's database.
+     * Only one instance of this class needs to exist at any given time, it is safe to use from several threads.
+     * @param api the bracket website API connector for obtaining remote information.
+     * @param objectCacheCapacity the maximum number of events, teams, and players (each) kept in memory.
+     * @param minConnections the number of connections kept open even while idle.
+     * @param maxConnections the maximum number of connections open at once,
+     *                       which is also the number of queries that can run at once.
+     */
+    public Database(APIConnector api, int objectCacheCapacity, int minConnections, int maxConnections) {
         this.api = api;
+        this.eventCache = new ObjectCache<>("events", objectCacheCapacity);
+        this.teamCache = new ObjectCache<>("teams", objectCacheCapacity);
+        this.playerCache = new ObjectCache<>("players", objectCacheCapacity);
+        this.queryCache = new QueryCache("queries", QUERY_CACHE_CAPACITY, QUERY_CACHE_TIME_TO_LIVE_MILLIS);
         try {
-            connection = DriverManager.getConnection("jdbc:derby:verification",
-                "veriftool", "csis643");
+            this.pool = new ConnectionPool("jdbc:derby:verification", "veriftool", "csis643",
+                minConnections, maxConnections, BORROW_TIMEOUT_MILLIS, STATEMENT_CACHE_CAPACITY);
         } catch (SQLException e) {
             throw new RuntimeException("Unable to connect to database!", e);
         }
@@ -34,206 +136,432 @@ public final class Database implements IDatabase {
 
     @Override
     public ArrayList<IEvent> searchEvents(String query) {
-        try (
-            PreparedStatement statement = prepare("SELECT event_id FROM events " +
-                "WHERE LOWER(name) LIKE ?",
-                query.trim().toLowerCase() + "%");
-            ResultSet rows = statement.executeQuery();
-        ) {
-            ArrayList<IDataKey> eventIds = new ArrayList<>();
-
-            while(rows.next()) {
-                eventIds.add(new DataKey(rows.getString("event_id"), null, null));
-            }
+        PrefixIndex index = this.eventIndex;
+        if (index != null) {
+            return this.loadIndexed(index.search(query.trim().toLowerCase(Locale.ROOT)), this::getEvents);
+        }
 
-            return new ArrayList<>(this.getEvents(eventIds).values());
-        } catch (SQLException e) {
-            throw new RuntimeException("Error while searching for events: ", e);
+        try (Stream<IEvent> events = this.streamEvents(query)) {
+            return events.collect(Collectors.toCollection(ArrayList::new));
         }
     }
 
     @Override
     public ArrayList<ITeam> searchTeams(String query) {
-        try (
-            PreparedStatement statement = prepare("SELECT team_id, event_id FROM eventTeams " +
-                "WHERE LOWER(name) LIKE ?",
-                query.trim().toLowerCase() + "%");
-            ResultSet rows = statement.executeQuery();
-        ) {
-            ArrayList<IDataKey> teamIds = new ArrayList<>();
-
-            while(rows.next()) {
-                teamIds.add(new DataKey(
-                        rows.getString("event_id"),
-                        rows.getString("team_id"),
-                        null));
-            }
+        PrefixIndex index = this.teamIndex;
+        if (index != null) {
+            return this.loadIndexed(index.search(query.trim().toLowerCase(Locale.ROOT)), this::getTeams);
+        }
 
-            return new ArrayList<>(this.getTeams(teamIds).values());
-        } catch (SQLException e) {
-            throw new RuntimeException("Error while searching for teams: ", e);
+        try (Stream<ITeam> teams = this.streamTeams(query)) {
+            return teams.collect(Collectors.toCollection(ArrayList::new));
         }
     }
 
     @Override
     public ArrayList<IPlayer> searchPlayers(String query) {
-        try (
-            PreparedStatement statement = prepare("SELECT player_id, team_id, event_id FROM rosters " +
-                "WHERE LOWER(name) LIKE ?",
-                query.trim().toLowerCase() + "%");
-            ResultSet rows = statement.executeQuery();
-        ) {
-            ArrayList<IDataKey> playerIds = new ArrayList<>();
-
-            while(rows.next()) {
-                playerIds.add(new DataKey(
-                        rows.getString("event_id"),
-                        rows.getString("team_id"),
-                        rows.getString("player_id")));
-            }
+        PrefixIndex index = this.playerIndex;
+        if (index != null) {
+            return this.loadIndexed(index.search(query.trim().toLowerCase(Locale.ROOT)),
+                keys -> this.getPlayers(keys, new IdMap<>()));
+        }
 
-            return new ArrayList<>(this.getPlayers(playerIds).values());
-        } catch (SQLException e) {
-            throw new RuntimeException("Error while searching for players: ", e);
+        try (Stream<IPlayer> players = this.streamPlayers(query)) {
+            return players.collect(Collectors.toCollection(ArrayList::new));
         }
     }
 
     @Override
-    public ArrayList<ITeam> getEventTeams(IEvent event, String query, VerificationStatus status, boolean includeDropped) {
-        String sql = "SELECT team_id FROM eventTeams WHERE event_id = ? AND LOWER(name) LIKE ?";
-        ArrayList<Object> args = new ArrayList<>();
-        args.add(Integer.parseInt(event.getId()));
-        args.add(query + "%");
+    public Stream<IEvent> streamEvents(String query) {
+        IdMap<IEvent> events = new IdMap<>(STREAM_PARENT_CAPACITY);
+        return this.stream(EVENT_QUERY + "WHERE e.search_name LIKE ? ESCAPE '\\' ORDER BY " + String.join(", ", EVENT_SEARCH_ORDER),
+            row -> this.readEvent(row, events), this.getPrefixPattern(query.trim().toLowerCase(Locale.ROOT)));
+    }
 
-        if (!includeDropped) {
-            sql += " AND dropped = 0";
-        }
+    @Override
+    public Stream<ITeam> streamTeams(String query) {
+        IdMap<IEvent> events = new IdMap<>(STREAM_PARENT_CAPACITY);
+        IdMap<ITeam> teams = new IdMap<>(STREAM_PARENT_CAPACITY);
+        return this.stream(TEAM_QUERY + "WHERE et.search_name LIKE ? ESCAPE '\\' ORDER BY " + String.join(", ", TEAM_SEARCH_ORDER),
+            row -> this.readTeam(row, events, teams), this.getPrefixPattern(query.trim().toLowerCase(Locale.ROOT)));
+    }
 
-        if (status != null) {
-            sql += " AND verification_status = ?";
-            args.add(status.getId());
-        }
+    @Override
+    public Stream<IPlayer> streamPlayers(String query) {
+        IdMap<IEvent> events = new IdMap<>(STREAM_PARENT_CAPACITY);
+        IdMap<ITeam> teams = new IdMap<>(STREAM_PARENT_CAPACITY);
+        return this.stream(PLAYER_QUERY + "WHERE r.search_name LIKE ? ESCAPE '\\' ORDER BY " + String.join(", ", PLAYER_SEARCH_ORDER),
+            row -> this.readPlayer(row, events, teams), this.getPrefixPattern(query.trim().toLowerCase(Locale.ROOT)));
+    }
 
-        try (
-            PreparedStatement statement = prepare(sql, args.toArray(new Object[0]));
-            ResultSet rows = statement.executeQuery();
-        ) {
-            ArrayList<IDataKey> keys = new ArrayList<>();
-            while (rows.next()) {
-                keys.add(new DataKey(event.getId(), rows.getString("team_id"), null));
+    @Override
+    public Page<IEvent> searchEvents(String query, int pageSize, String continuationToken) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        return this.cachedPage(QueryCache.key("searchEvents", normalized, pageSize, continuationToken), true,
+            () -> this.loadEventSearchPage(normalized, pageSize, continuationToken), null);
+    }
+
+    @Override
+    public Page<ITeam> searchTeams(String query, int pageSize, String continuationToken) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        return this.cachedPage(QueryCache.key("searchTeams", normalized, pageSize, continuationToken), true,
+            () -> this.loadTeamSearchPage(normalized, pageSize, continuationToken), null);
+    }
+
+    @Override
+    public Page<IPlayer> searchPlayers(String query, int pageSize, String continuationToken) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        return this.cachedPage(QueryCache.key("searchPlayers", normalized, pageSize, continuationToken), true,
+            () -> this.loadPlayerSearchPage(normalized, pageSize, continuationToken), null);
+    }
+
+    @Override
+    public int countEvents(String query, int limit) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        return this.queryCache.get(QueryCache.key("countEvents", normalized, limit), true, () -> {
+            PrefixIndex index = this.eventIndex;
+            if (index != null) {
+                return Math.min(index.count(normalized), limit);
             }
 
-            return new ArrayList<>(this.getTeams(keys).values());
-        } catch (SQLException e) {
-            throw new RuntimeException("Error while getting an event's teams: ", e);
-        }
+            return this.countUpTo("events e", "e.search_name LIKE ? ESCAPE '\\'", limit,
+                this.getPrefixPattern(normalized));
+        }, count -> Collections.emptyList());
+    }
+
+    @Override
+    public int countTeams(String query, int limit) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        return this.queryCache.get(QueryCache.key("countTeams", normalized, limit), true, () -> {
+            PrefixIndex index = this.teamIndex;
+            if (index != null) {
+                return Math.min(index.count(normalized), limit);
+            }
+
+            return this.countUpTo("eventTeams et", "et.search_name LIKE ? ESCAPE '\\'", limit,
+                this.getPrefixPattern(normalized));
+        }, count -> Collections.emptyList());
+    }
+
+    @Override
+    public int countPlayers(String query, int limit) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        return this.queryCache.get(QueryCache.key("countPlayers", normalized, limit), true, () -> {
+            PrefixIndex index = this.playerIndex;
+            if (index != null) {
+                return Math.min(index.count(normalized), limit);
+            }
+
+            // Every roster entry has a player, team, and event, so only the rosters table needs to be read
+            return this.countUpTo("rosters r", "r.search_name LIKE ? ESCAPE '\\'", limit,
+                this.getPrefixPattern(normalized));
+        }, count -> Collections.emptyList());
+    }
+
+    @Override
+    public ArrayList<ITeam> getEventTeams(IEvent event, String query, VerificationStatus status, boolean includeDropped) {
+        // Keyed by the event instance, so cached teams are always attached to the event we were given
+        List<Object> key = QueryCache.key("getEventTeams", event, query.trim().toLowerCase(Locale.ROOT), status, includeDropped);
+        return new ArrayList<>(this.queryCache.get(key, false, () -> {
+            ArrayList<Object> args = new ArrayList<>();
+            String condition = this.getEventTeamsCondition(event, query, status, includeDropped, args)
+                + " ORDER BY " + String.join(", ", EVENT_TEAM_ORDER);
+
+            // Attach the teams to the event we were given
+            IdMap<IEvent> knownEvents = new IdMap<>();
+            knownEvents.put(IdMap.key(event.getFullKey()), event);
+            return new ArrayList<>(this.loadTeams(condition, args, k -> true, knownEvents).values());
+        }, teams -> Collections.singletonList(event.getFullKey())));
+    }
+
+    @Override
+    public Page<ITeam> getEventTeams(IEvent event, String query, VerificationStatus status, boolean includeDropped,
+                                     int pageSize, String continuationToken) {
+        // Keyed by the event instance, so cached teams are always attached to the event we were given
+        List<Object> key = QueryCache.key("getEventTeams", event, query.trim().toLowerCase(Locale.ROOT), status, includeDropped,
+            pageSize, continuationToken);
+        return this.cachedPage(key, false, () -> {
+            ArrayList<Object> args = new ArrayList<>();
+            String condition = this.getEventTeamsCondition(event, query, status, includeDropped, args);
+
+            // Attach the teams to the event we were given
+            IdMap<IEvent> knownEvents = new IdMap<>();
+            knownEvents.put(IdMap.key(event.getFullKey()), event);
+            return this.loadPage(condition, args, EVENT_TEAM_ORDER, pageSize, continuationToken,
+                (pageCondition, pageArgs) -> this.loadTeams(pageCondition, pageArgs, k -> true, knownEvents),
+                team -> new Object[] {team.getRegistrationOrder(), team.getId()});
+        }, event.getFullKey());
+    }
+
+    @Override
+    public int countEventTeams(IEvent event, String query, VerificationStatus status, boolean includeDropped) {
+        List<Object> key = QueryCache.key("countEventTeams", event.getFullKey(), query.trim().toLowerCase(Locale.ROOT), status,
+            includeDropped);
+        return this.queryCache.get(key, false, () -> {
+            ArrayList<Object> args = new ArrayList<>();
+            String condition = this.getEventTeamsCondition(event, query, status, includeDropped, args);
+            return this.count("SELECT COUNT(*) FROM eventTeams et WHERE " + condition, args.toArray());
+        }, count -> Collections.singletonList(event.getFullKey()));
     }
 
     @Override
     public ArrayList<IPlayer> getTeamMembers(ITeam team) {
         ArrayList<IDataKey> key = new ArrayList<>();
         key.add(team.getFullKey());
-        return new ArrayList<>(this.getPlayers(key).values());
+        // Attach the players to the team we were given
+        IdMap<ITeam> knownTeams = new IdMap<>();
+        knownTeams.put(IdMap.key(team.getFullKey()), team);
+        return new ArrayList<>(this.getPlayers(key, knownTeams).values());
     }
 
     @Override
     public ArrayList<IPlayer> getRecentParticipationFor(IPlayer player) {
-        ArrayList<IDataKey> key = new ArrayList<>();
-        key.add(new DataKey(null, null, player.getId()));
-        // getPrimaryKeys called by getPlayers will expand the ::P key provided into many E:T:P keys
-        // and will result in a variety of objects being returned.
-        ZonedDateTime cutoff = LocalDateTime.now().minusMonths(3).atZone(TimeZone.getDefault().toZoneId());
-        return this.getPlayers(key).values().stream()
-                // Remove instances that are > 3 months old
-                .filter(p -> p.getTeam().getEvent().getStartDateTime().isAfter(cutoff))
-                // Don't include the provided player
-                .filter(p -> !p.getFullKey().getFullId().equals(player.getFullKey().getFullId()))
-                .collect(Collectors.toCollection(ArrayList::new));
+        return this.getRecentParticipationFor(player, RECENT_PARTICIPATION_WINDOW, "");
     }
 
     @Override
-    public void populateRosters(ArrayList<ITeam> teams) {
-        ArrayList<IPlayer> teamMembers = new ArrayList<>(
-                this.getPlayers(teams.stream()
-                .map(ITeam::getFullKey)
-                .collect(Collectors.toCollection(ArrayList::new))).values()
-        );
-
-        ArrayList<String> teamIds = teams.stream().map(ITeam::getFullKey).map(IDataKey::getFullId)
-                .collect(Collectors.toCollection(ArrayList::new));
-
-        for (IPlayer player : teamMembers) {
-            int index = teamIds.indexOf(player.getTeam().getFullKey().getFullId());
-            if (index < 0) {
-                // Should never happen
-                throw new IllegalStateException("Negative index when populating rosters");
-            }
-
-            // Safe cast, all ITeam instances are also IMutableTeam instances
-            ((IMutableTeam) teams.get(index)).addToRoster(player);
-        }
+    public ArrayList<IPlayer> getRecentParticipationFor(IPlayer player, Period window, String eventQuery) {
+        ArrayList<Object> args = new ArrayList<>();
+        args.add(Integer.parseInt(player.getId()));
+        // Start dates are stored in UTC
+        args.add(Timestamp.valueOf(LocalDateTime.now(ZoneId.of("UTC")).minus(window)));
+        // Every other roster entry of the player, the given one differs from them by event or team
+        args.add(Integer.parseInt(player.getTeam().getEvent().getId()));
+        args.add(Integer.parseInt(player.getTeam().getId()));
+        args.add(this.getPrefixPattern(eventQuery.trim().toLowerCase(Locale.ROOT)));
+        // Only the player's entries within the window are read from the participation table's primary key
+        String condition = "pa.player_id = ? AND pa.startDate > ? AND (pa.event_id <> ? OR pa.team_id <> ?) "
+            + "AND e.search_name LIKE ? ESCAPE '\\' ORDER BY " + PARTICIPATION_ORDER;
+
+        return new ArrayList<>(this.loadPlayers(PARTICIPATION_QUERY, condition, args, key -> true,
+            new IdMap<>()).values());
+    }
 
-        // Return value not required, objects updated
+    @Override
+    public void populateRosters(ArrayList<ITeam> teams) {
+        // Cached teams keep their roster between calls, only the missing ones are read, all in one query.
+        // Players are attached directly to the teams we were given.
+        RosterBatch.loadRosters(teams, (keys, claimed) -> this.getPlayers(keys, claimed).values());
     }
 
     @Override
     public String updateTeamVerification(ITeam team, VerificationStatus status, String note) {
-        this.setAutoCommit(false);
-        try (
-            PreparedStatement statement = prepare("UPDATE eventTeams SET verification_status = ?, "
-                + "verification_note = ? WHERE event_id = ? AND team_id = ?",
-                status.getId(), note,
-                team.getEvent().getId(), team.getId());
-        ) {
-            statement.executeUpdate();
-
-            // Update team object, safe cast, all ITeams are IMutableTeams
-            ((IMutableTeam) team).updateVerificationDetails(status, note);
+        return this.updateTeamVerification(team, status, note, false);
+    }
 
-            return "Changes saved!";
-        } catch (SQLException e) {
-            this.rollbackTransaction();
-            return "An error occurred, changes not saved.";
-        } finally {
-            this.setAutoCommit(true);
-        }
+    @Override
+    public String updateTeamVerification(ITeam team, VerificationStatus status, String note, boolean cascade) {
+        ArrayList<VerificationUpdate<ITeam>> updates = new ArrayList<>();
+        updates.add(new VerificationUpdate<>(team, status, note));
+        return this.updateTeamVerifications(updates, cascade).get(0);
     }
 
     @Override
     public String updatePlayerVerification(IPlayer player, VerificationStatus status, String note) {
-        this.setAutoCommit(false);
-        try (
-            PreparedStatement statement = prepare("UPDATE rosters SET verification_status = ?, "
-                + "verification_note = ? WHERE event_id = ? AND team_id = ? AND player_id = ?",
-                status.getId(), note,
-                player.getTeam().getEvent().getId(), player.getTeam().getId(), player.getId());
-        ) {
-            statement.executeUpdate();
+        ArrayList<VerificationUpdate<IPlayer>> updates = new ArrayList<>();
+        updates.add(new VerificationUpdate<>(player, status, note));
+        return this.updatePlayerVerifications(updates).get(0);
+    }
 
-            // Update player object, safe cast, all IPlayers are IMutablePlayers
-            ((IMutablePlayer) player).updateVerificationDetails(status, note);
+    @Override
+    public ArrayList<String> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates) {
+        return this.updateTeamVerifications(updates, false);
+    }
 
-            return "Changes saved!";
-        } catch (SQLException e) {
-            this.rollbackTransaction();
-            return "An error occurred, changes not saved.";
-        } finally {
-            this.setAutoCommit(true);
-        }
+    @Override
+    public ArrayList<String> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates, boolean cascade) {
+        return this.updateVerifications(updates, "UPDATE eventTeams SET verification_status = ?, "
+            + "verification_note = ? WHERE event_id = ? AND team_id = ?",
+            // One set-based statement per team instead of updating each player, only players still Unverified
+            // inherit the team's status, explicitly set statuses are kept
+            cascade ? "UPDATE rosters SET verification_status = ? WHERE event_id = ? AND team_id = ? "
+                + "AND verification_status = " + VerificationStatus.Unverified.getId() : null,
+            team -> new Object[] {team.getEvent().getId(), team.getId()},
+            update -> {
+                ITeam team = update.getTarget();
+                // Update team object, safe cast, all ITeams are IMutableTeams
+                ((IMutableTeam) team).updateVerificationDetails(update.getStatus(), update.getNote());
+                if (cascade && update.getStatus() != VerificationStatus.Unverified
+                        && ((IMutableTeam) team).isRosterLoaded()) {
+                    // Match the cascade statement on the roster already loaded, keeping each player's note
+                    for (IPlayer player : team.getRoster()) {
+                        IMutablePlayer mutablePlayer = (IMutablePlayer) player;
+                        if (mutablePlayer.getOwnVerificationStatus() == VerificationStatus.Unverified) {
+                            mutablePlayer.updateVerificationDetails(update.getStatus(), player.getVerificationNote());
+                        }
+                    }
+                }
+                // Players inherit the team's status, so they are reloaded along with the team
+                this.teamCache.invalidate(team.getFullKey());
+                this.playerCache.invalidateTree(team.getFullKey());
+                this.queryCache.invalidate(team.getFullKey());
+            });
+    }
+
+    @Override
+    public ArrayList<String> updatePlayerVerifications(ArrayList<VerificationUpdate<IPlayer>> updates) {
+        return this.updateVerifications(updates, "UPDATE rosters SET verification_status = ?, "
+            + "verification_note = ? WHERE event_id = ? AND team_id = ? AND player_id = ?", null,
+            player -> new Object[] {player.getTeam().getEvent().getId(), player.getTeam().getId(), player.getId()},
+            update -> {
+                IPlayer player = update.getTarget();
+                // Update player object, safe cast, all IPlayers are IMutablePlayers
+                ((IMutablePlayer) player).updateVerificationDetails(update.getStatus(), update.getNote());
+                // The team's cached roster may hold a different instance of this player, reload both
+                this.teamCache.invalidate(player.getTeam().getFullKey());
+                this.playerCache.invalidateTree(player.getTeam().getFullKey());
+                this.queryCache.invalidate(player.getFullKey());
+            });
     }
 
     @Override
     public String fetchEventRegistrants(IEvent event) {
         int count = this.api.fetchParticipants(event.getRemoteId()).size();
+        if (count > 0) {
+            // Teams may have been added to or dropped from the event, and may match searches they didn't before
+            this.queryCache.invalidate(event.getFullKey());
+            this.queryCache.invalidateSearches();
+        }
+        if (count > 0 && this.nameIndexEnabled) {
+            // Imported teams and players may have new names
+            this.rebuildNameIndex();
+        }
+
         return String.format("Updated %d teams.", count);
     }
 
     @Override
     public String fetchNewEvents() {
         int count = this.api.fetchEvents().size();
+        if (count > 0) {
+            this.queryCache.invalidateSearches();
+        }
+        if (count > 0 && this.nameIndexEnabled) {
+            // Imported events may have new names
+            this.rebuildNameIndex();
+        }
+
         return String.format("Added %d events.", count);
     }
 
+    /**
+     * Get statistics for the in-memory event, team, and player caches.
+     * Intended to help size the caches for heavy use.
+     * @return a list containing the statistics of each cache.
+     */
+    public ArrayList<CacheStatistics> getObjectCacheStatistics() {
+        ArrayList<CacheStatistics> statistics = new ArrayList<>();
+        statistics.add(this.eventCache.getStatistics());
+        statistics.add(this.teamCache.getStatistics());
+        statistics.add(this.playerCache.getStatistics());
+        return statistics;
+    }
+
+    /**
+     * Get statistics for the cache of search and listing results.
+     * Invalidations are results removed because a verification update or import changed what they hold,
+     * coalesced lookups are requests that waited for the same query already running for another caller.
+     * @return the statistics of the query cache.
+     */
+    public CacheStatistics getQueryCacheStatistics() {
+        return this.queryCache.getStatistics();
+    }
+
+    /**
+     * Keep an in-memory index of event, team, and player names so searches don't need to query the database
+     * to find matching rows, only to load them.
+     * The index is built in the background, searches use the database until it is ready.
+     * It is rebuilt whenever an import may have added new names.
+     * Costs memory for every event, team, and roster entry, see getNameIndexStatistics.
+     */
+    public void enableNameIndex() {
+        this.nameIndexEnabled = true;
+        this.rebuildNameIndex();
+    }
+
+    /**
+     * Get statistics, including estimated memory use, for the in-memory name indexes that are ready.
+     * @return a list containing the statistics of each ready index, empty if the name index is not enabled.
+     */
+    public ArrayList<PrefixIndexStatistics> getNameIndexStatistics() {
+        ArrayList<PrefixIndexStatistics> statistics = new ArrayList<>();
+        for (PrefixIndex index : new PrefixIndex[] {this.eventIndex, this.teamIndex, this.playerIndex}) {
+            if (index != null) {
+                statistics.add(index.getStatistics());
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Rebuild the participation table from the rosters and events tables, in a single transaction.
+     * Only needed if the table has been changed by hand or its triggers were missing, see checkParticipation.
+     * @return a human-readable string of text indicating the result.
+     */
+    public String rebuildParticipation() {
+        try (PooledConnection connection = this.borrowConnection()) {
+            this.setAutoCommit(connection, false);
+            try {
+                prepare(connection, "DELETE FROM participation").executeUpdate();
+                int rows = prepare(connection, "INSERT INTO participation (player_id, startDate, event_id, team_id) "
+                    + "SELECT r.player_id, e.startDate, r.event_id, r.team_id "
+                    + "FROM rosters r INNER JOIN events e ON r.event_id = e.event_id").executeUpdate();
+                connection.getConnection().commit();
+
+                return String.format("Rebuilt participation from %d roster entries.", rows);
+            } catch (SQLException e) {
+                this.rollbackTransaction(connection);
+                return "An error occurred, participation not rebuilt.";
+            } finally {
+                this.setAutoCommit(connection, true);
+            }
+        }
+    }
+
+    /**
+     * Compare the participation table to the rosters and events tables it is built from.
+     * @return a human-readable string of text describing any differences found.
+     */
+    public String checkParticipation() {
+        int missing = this.count("SELECT COUNT(*) FROM rosters r WHERE NOT EXISTS (SELECT 1 FROM participation pa "
+            + "WHERE pa.player_id = r.player_id AND pa.event_id = r.event_id AND pa.team_id = r.team_id)");
+        int extra = this.count("SELECT COUNT(*) FROM participation pa WHERE NOT EXISTS (SELECT 1 FROM rosters r "
+            + "WHERE r.event_id = pa.event_id AND r.team_id = pa.team_id AND r.player_id = pa.player_id)");
+        int stale = this.count("SELECT COUNT(*) FROM participation pa "
+            + "INNER JOIN events e ON pa.event_id = e.event_id WHERE pa.startDate <> e.startDate");
+
+        if (missing == 0 && extra == 0 && stale == 0) {
+            return "Participation is consistent with rosters.";
+        }
+
+        return String.format("Participation is inconsistent with rosters: %d roster entries missing, "
+            + "%d entries without a roster entry, %d entries with the wrong start date. "
+            + "Run with --rebuild-participation to fix.", missing, extra, stale);
+    }
+
+    @Override
+    public void cancelQueries(Thread thread) {
+        this.pool.cancel(thread);
+    }
+
+    /**
+     * Get statistics for the prepared statement cache.
+     * Hits are statements reused without compiling, misses are statements that had to be compiled.
+     * @return the statistics of the statement cache.
+     */
+    public CacheStatistics getStatementCacheStatistics() {
+        return this.pool.getStatementCacheStatistics();
+    }
+
+    /**
+     * Close every idle database connection. Connections still in use are closed as soon as they are done.
+     * The database object can't be used once it is closed.
+     */
+    public void close() {
+        this.pool.close();
+    }
+
     /*
      * Helper Methods
      */
@@ -241,15 +569,17 @@ public final class Database implements IDatabase {
     /**
      * Converts a string containing an SQL statement and arguments into a
      * PreparedStatement that is ready to execute.
+     * Statements are cached by their SQL text, so the returned statement must not be closed by the caller.
+     * @param connection the borrowed connection to prepare the statement on.
      * @param sql the sql statement string.
      * @param args arguments of any type in the order that they should replace the placeholders in the statement.
      * @return a PreparedStatement that is ready to execute.
      * @param <T> the supertype of all provided arguments, typically Object.
      */
     @SafeVarargs
-    private final <T> PreparedStatement prepare(String sql, T... args) {
+    private final <T> PreparedStatement prepare(PooledConnection connection, String sql, T... args) {
         try {
-            PreparedStatement p = connection.prepareStatement(sql);
+            PreparedStatement p = connection.prepare(sql);
 
             for (int i = 0; i < args.length; i++) {
                 p.setObject(i + 1, args[i]);
@@ -262,293 +592,1023 @@ public final class Database implements IDatabase {
     }
 
     /**
-     * Obtains a map of events from a list of data keys.
-     * The method will expand the data keys into primary keys if needed.
-     * @param ids An array list of data keys.
-     * @return A map where the keys are full primary keys and the values are event objects.
+     * Applies a list of verification updates as one JDBC batch in a single transaction.
+     * If any statement fails, the whole batch is rolled back.
+     * @param updates the objects to update, along with each one's new status and note.
+     * @param sql an UPDATE statement setting the status and note, followed by placeholders for the primary key.
+     * @param cascadeSql an UPDATE statement run once per object after sql, setting the status followed by
+     *                   placeholders for the same primary key, or null if there is nothing to cascade to.
+     * @param keyArgs gets the primary key values of an object, in the order of the statement's placeholders.
+     * @param applied called for each update once it has been committed, to update the object and caches.
+     * @return a human-readable string of text indicating the result of each update, in the same order.
+     * @param <T> the type of object being updated.
+     */
+    private <T extends IDataObject> ArrayList<String> updateVerifications(ArrayList<VerificationUpdate<T>> updates,
+                                                                          String sql, String cascadeSql,
+                                                                          Function<T, Object[]> keyArgs,
+                                                                          Consumer<VerificationUpdate<T>> applied) {
+        ArrayList<String> results = new ArrayList<>();
+        if (updates.isEmpty()) {
+            return results;
+        }
+
+        try (PooledConnection connection = this.borrowConnection()) {
+            this.setAutoCommit(connection, false);
+            try {
+                PreparedStatement statement = prepare(connection, sql);
+                // The statement is cached, drop anything left over from a batch that failed part way through
+                statement.clearBatch();
+                for (VerificationUpdate<T> update : updates) {
+                    statement.setObject(1, update.getStatus().getId());
+                    statement.setObject(2, update.getNote());
+                    Object[] key = keyArgs.apply(update.getTarget());
+                    for (int i = 0; i < key.length; i++) {
+                        statement.setObject(i + 3, key[i]);
+                    }
+                    statement.addBatch();
+                }
+
+                int[] counts = statement.executeBatch();
+
+                if (cascadeSql != null) {
+                    PreparedStatement cascade = prepare(connection, cascadeSql);
+                    cascade.clearBatch();
+                    boolean cascading = false;
+                    for (VerificationUpdate<T> update : updates) {
+                        if (update.getStatus() == VerificationStatus.Unverified) {
+                            continue; // Nothing would change
+                        }
+
+                        cascade.setObject(1, update.getStatus().getId());
+                        Object[] key = keyArgs.apply(update.getTarget());
+                        for (int i = 0; i < key.length; i++) {
+                            cascade.setObject(i + 2, key[i]);
+                        }
+                        cascade.addBatch();
+                        cascading = true;
+                    }
+
+                    if (cascading) {
+                        cascade.executeBatch();
+                    }
+                }
+
+                connection.getConnection().commit();
+
+                for (int i = 0; i < updates.size(); i++) {
+                    if (counts[i] == 0) {
+                        // Nothing matched, most likely removed by an import since it was loaded
+                        results.add("Not found, changes not saved.");
+                    } else {
+                        applied.accept(updates.get(i));
+                        results.add("Changes saved!");
+                    }
+                }
+
+                return results;
+            } catch (SQLException e) {
+                this.rollbackTransaction(connection);
+                return new ArrayList<>(Collections.nCopies(updates.size(), "An error occurred, changes not saved."));
+            } finally {
+                this.setAutoCommit(connection, true);
+            }
+        }
+    }
+
+    /**
+     * Runs a COUNT query.
+     * @param sql the query, selecting a single count.
+     * @param args values for each placeholder in the query, in order.
+     * @return the count.
      */
-    private Map<String, IEvent> getEvents(ArrayList<IDataKey> ids) {
-        // Expand keys into a consistent format (primary keys) if they aren't already
-        // This also validates that the keys are consistent
-        ids = getPrimaryKeys(ids);
+    private int count(String sql, Object... args) {
+        // The statement is cached for reuse, so only the result set is closed
+        try (
+            PooledConnection connection = this.borrowConnection();
+            ResultSet rows = prepare(connection, sql, args).executeQuery();
+        ) {
+            rows.next();
+            return rows.getInt(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while counting rows: ", e);
+        }
+    }
 
-        if (ids.isEmpty()) {
-            // No values to get
-            return new HashMap<>();
+    /**
+     * Read one page of the events matching a search from the database, see searchEvents.
+     * @param query the normalized query to search with.
+     * @param pageSize the maximum number of events on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of events that matched the query.
+     */
+    private Page<IEvent> loadEventSearchPage(String query, int pageSize, String continuationToken) {
+        PrefixIndex index = this.eventIndex;
+        if (index != null) {
+            return this.loadIndexedPage(index, query, pageSize, continuationToken, this::getEvents);
+        }
+
+        ArrayList<Object> args = new ArrayList<>();
+        args.add(this.getPrefixPattern(query));
+        return this.loadPage("e.search_name LIKE ? ESCAPE '\\'", args, EVENT_SEARCH_ORDER, pageSize, continuationToken,
+            this::loadEvents, this::getSearchSortKey);
+    }
+
+    /**
+     * Read one page of the teams matching a search from the database, see searchTeams.
+     * @param query the normalized query to search with.
+     * @param pageSize the maximum number of teams on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of teams that matched the query.
+     */
+    private Page<ITeam> loadTeamSearchPage(String query, int pageSize, String continuationToken) {
+        PrefixIndex index = this.teamIndex;
+        if (index != null) {
+            return this.loadIndexedPage(index, query, pageSize, continuationToken,
+                this::getTeams);
+        }
+
+        ArrayList<Object> args = new ArrayList<>();
+        args.add(this.getPrefixPattern(query));
+        return this.loadPage("et.search_name LIKE ? ESCAPE '\\'", args, TEAM_SEARCH_ORDER, pageSize, continuationToken,
+            (condition, conditionArgs) -> this.loadTeams(condition, conditionArgs, k -> true, new IdMap<>()),
+            this::getSearchSortKey);
+    }
+
+    /**
+     * Read one page of the players matching a search from the database, see searchPlayers.
+     * @param query the normalized query to search with.
+     * @param pageSize the maximum number of players on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of players that matched the query.
+     */
+    private Page<IPlayer> loadPlayerSearchPage(String query, int pageSize, String continuationToken) {
+        PrefixIndex index = this.playerIndex;
+        if (index != null) {
+            return this.loadIndexedPage(index, query, pageSize, continuationToken,
+                keys -> this.getPlayers(keys, new IdMap<>()));
         }
 
-        String keyType = this.getCompositeSQLKey(ids.get(0));
-        String sql = String.format("SELECT * FROM events " +
-            "WHERE %s IN (%s)", keyType,
-            String.join(", ", Collections.nCopies(ids.size(), "?")));
+        ArrayList<Object> args = new ArrayList<>();
+        args.add(this.getPrefixPattern(query));
+        return this.loadPage("r.search_name LIKE ? ESCAPE '\\'", args, PLAYER_SEARCH_ORDER, pageSize, continuationToken,
+            (condition, conditionArgs) -> this.loadPlayers(condition, conditionArgs, k -> true, new IdMap<>()),
+            this::getSearchSortKey);
+    }
+
+    /**
+     * Get a page of results from the query cache, loading and caching it if it isn't cached.
+     * The page depends on the objects on it, and on the object it lists the children of if there is one.
+     * @param key the key of the page, see QueryCache.key.
+     * @param search true if the page is a page of search results.
+     * @param loader reads the page from the database.
+     * @param parent the key of the object whose children are listed on the page, or null for a search.
+     * @return a copy of the page, so callers can't change the cached page's list of items.
+     * @param <T> the type of data object on the page.
+     */
+    private <T extends IDataObject> Page<T> cachedPage(List<Object> key, boolean search, Supplier<Page<T>> loader,
+                                                       IDataKey parent) {
+        Page<T> page = this.queryCache.get(key, search, loader, cached -> {
+            ArrayList<IDataKey> keys = new ArrayList<>();
+            if (parent != null) {
+                keys.add(parent);
+            }
+            for (T item : cached.getItems()) {
+                keys.add(item.getFullKey());
+            }
+
+            return keys;
+        });
 
+        return new Page<>(new ArrayList<>(page.getItems()), page.getContinuationToken());
+    }
+
+    /**
+     * Count the rows matching a condition, stopping once the limit is reached.
+     * @param table the table to count rows of, with its alias.
+     * @param condition a string containing an SQL condition on the table usable in a WHERE clause.
+     * @param limit the most rows to count.
+     * @param args the values for each placeholder in the condition, in order.
+     * @return the number of matching rows, or limit if at least that many match.
+     */
+    private int countUpTo(String table, String condition, int limit, Object... args) {
+        if (limit <= 0) {
+            return 0;
+        }
+
+        Object[] limitedArgs = Arrays.copyOf(args, args.length + 1);
+        limitedArgs[args.length] = limit;
+        // Derby reads every matching row to count them, fetching only the first few bounds the work
+        return this.count("SELECT COUNT(*) FROM (SELECT 1 AS matched FROM " + table + " WHERE " + condition
+            + " FETCH FIRST ? ROWS ONLY) m", limitedArgs);
+    }
+
+    /**
+     * Builds the SQL condition matching the filters of an event team listing.
+     * @param event the event to get teams for.
+     * @param query the query to search with. Will match any teams names that start with this value.
+     * @param status if not null, only teams that have the provided verification status are matched.
+     * @param includeDropped if true, dropped teams are matched.
+     * @param args list that the values for each placeholder in the condition are added to, in order.
+     * @return a string containing an SQL condition on the eventTeams table (aliased et) usable in a WHERE clause.
+     */
+    private String getEventTeamsCondition(IEvent event, String query, VerificationStatus status,
+                                          boolean includeDropped, ArrayList<Object> args) {
+        String condition = "et.event_id = ? AND et.search_name LIKE ? ESCAPE '\\'";
+        args.add(Integer.parseInt(event.getId()));
+        args.add(this.getPrefixPattern(query.trim().toLowerCase(Locale.ROOT)));
+
+        if (!includeDropped) {
+            condition += " AND et.dropped = 0";
+        }
+
+        if (status != null) {
+            condition += " AND et.verification_status = ?";
+            args.add(status.getId());
+        }
+
+        return condition;
+    }
+
+    /**
+     * Reads one page of the rows matching an SQL condition, in the order of a set of sort columns.
+     * Rows are read from directly after the previous page's last row, so earlier pages are never read again.
+     * @param condition an SQL condition usable in a WHERE clause, see the loader for the tables it may use.
+     * @param args values for each placeholder in the condition, in order.
+     * @param order the columns to sort by, which together must be unique for every row.
+     * @param pageSize the maximum number of rows on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @param loader one of loadEvents, loadTeams, or loadPlayers, called with the full condition and its arguments.
+     * @param sortKey gets the value of each sort column from a loaded object.
+     * @return the page of loaded objects.
+     * @param <T> the type of object being loaded.
+     */
+    private <T> Page<T> loadPage(String condition, ArrayList<Object> args, String[] order, int pageSize,
+                                 String continuationToken, BiFunction<String, ArrayList<Object>, Map<IDataKey, T>> loader,
+                                 Function<T, Object[]> sortKey) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1, got " + pageSize);
+        }
+
+        if (continuationToken != null) {
+            condition += " AND " + this.getKeysetCondition(order, Page.decodeToken(continuationToken, order.length), args);
+        }
+
+        // One extra row tells us whether there is another page
+        condition += " ORDER BY " + String.join(", ", order) + " FETCH FIRST ? ROWS ONLY";
+        args.add(pageSize + 1);
+
+        ArrayList<T> rows = new ArrayList<>(loader.apply(condition, args).values());
+        return this.toPage(rows, pageSize, rows.size() > pageSize, sortKey);
+    }
+
+    /**
+     * Reads one page of a search from a name index, loading only the objects on that page.
+     * @param index the name index to search.
+     * @param prefix the lower-cased prefix to search for.
+     * @param pageSize the maximum number of objects on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @param loader one of getEvents, getTeams, or getPlayers, used to load the objects.
+     * @return the page of loaded objects.
+     * @param <T> the type of object being loaded.
+     */
+    private <T extends IDataObject> Page<T> loadIndexedPage(PrefixIndex index, String prefix, int pageSize,
+                                                            String continuationToken,
+                                                            Function<ArrayList<IDataKey>, Map<IDataKey, T>> loader) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1, got " + pageSize);
+        }
+
+        String[] after = continuationToken == null ? null : Page.decodeToken(continuationToken, index.getSortColumns());
+        ArrayList<IDataKey> keys = index.search(prefix, after, pageSize + 1);
+        boolean more = keys.size() > pageSize;
+        if (more) {
+            keys.remove(pageSize);
+        }
+
+        return this.toPage(this.loadIndexed(keys, loader), pageSize, more, this::getSearchSortKey);
+    }
+
+    /**
+     * Wraps loaded objects in a page, making the continuation token from the last one if there are more.
+     * @param rows the loaded objects, in order. Objects past the page size are dropped.
+     * @param pageSize the maximum number of objects on the page.
+     * @param more are there more objects after the page?
+     * @param sortKey gets the value of each sort column from an object.
+     * @return the page.
+     * @param <T> the type of object on the page.
+     */
+    private <T> Page<T> toPage(ArrayList<T> rows, int pageSize, boolean more, Function<T, Object[]> sortKey) {
+        ArrayList<T> items = rows.size() > pageSize ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        if (!more || items.isEmpty()) {
+            return new Page<>(items, null);
+        }
+
+        return new Page<>(items, Page.encodeToken(sortKey.apply(items.get(items.size() - 1))));
+    }
+
+    /**
+     * Build the LIKE pattern matching every name that starts with a normalized query.
+     * LIKE's wildcards and escape character are escaped so they only match themselves, as they do in the
+     * name indexes, so the index and the database find the same names. Used with ESCAPE '\'.
+     * @param query the normalized query.
+     * @return the pattern.
+     */
+    private String getPrefixPattern(String query) {
+        return query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Get the sort key of an object in a paged name search: an event's start date, its lower-cased name,
+     * then each id of its primary key. The name is lower-cased the same way regardless of the system's locale,
+     * like the search_name columns. The start date is written as it is stored, in UTC, which Derby can compare
+     * against the column when it is read back from a continuation token.
+     * @param dataObject the event, team, or player.
+     * @return the value of each sort column.
+     */
+    private Object[] getSearchSortKey(IDataObject dataObject) {
+        IDataKey key = dataObject.getFullKey();
+        ArrayList<Object> values = new ArrayList<>();
+        if (dataObject instanceof IEvent) {
+            values.add(Timestamp.valueOf(((IEvent) dataObject).getStartDateTime()
+                .withZoneSameInstant(ZoneId.of("UTC")).toLocalDateTime()));
+        }
+        values.add(dataObject.getName().toLowerCase(Locale.ROOT));
+        values.add(key.getEventId());
+        if (key.getIdFormat().contains("T")) {
+            values.add(key.getTeamId());
+        }
+        if (key.getIdFormat().contains("P")) {
+            values.add(key.getPlayerId());
+        }
+
+        return values.toArray();
+    }
+
+    /**
+     * Builds an SQL condition matching the rows that sort after a given row.
+     * Derby can't compare row values, so (a, b) > (?, ?) is spelled out as a > ? OR (a = ? AND b > ?).
+     * Columns sorted in descending order are compared with < instead.
+     * The condition also starts with a >= ?, which lets Derby begin its index scan at the given row.
+     * @param order the sort columns, each followed by DESC if it is sorted in descending order.
+     * @param after the value of each sort column for the row to start after.
+     * @param args list that the values for each placeholder in the condition are added to, in order.
+     * @return a string containing an SQL condition usable in a WHERE clause.
+     */
+    private String getKeysetCondition(String[] order, String[] after, ArrayList<Object> args) {
+        String[] columns = new String[order.length];
+        String[] comparisons = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            boolean descending = order[i].endsWith(" DESC");
+            columns[i] = descending ? order[i].substring(0, order[i].length() - " DESC".length()) : order[i];
+            comparisons[i] = descending ? "<" : ">";
+        }
+
+        int last = order.length - 1;
+        String condition = columns[last] + " " + comparisons[last] + " ?";
+        for (int i = last - 1; i >= 0; i--) {
+            condition = String.format("%s %s ? OR (%s = ? AND (%s))", columns[i], comparisons[i], columns[i],
+                condition);
+        }
+
+        args.add(after[0]);
+        for (int i = 0; i < last; i++) {
+            args.add(after[i]);
+            args.add(after[i]);
+        }
+        args.add(after[last]);
+
+        return String.format("%s %s= ? AND (%s)", columns[0], comparisons[0], condition);
+    }
+
+    /**
+     * Discard the name indexes and start building new ones in the background.
+     * Searches use the database until the new indexes are ready.
+     */
+    private void rebuildNameIndex() {
+        int version;
+        synchronized (this.nameIndexVersion) {
+            version = this.nameIndexVersion.incrementAndGet();
+            this.eventIndex = null;
+            this.teamIndex = null;
+            this.playerIndex = null;
+        }
+
+        Thread builder = new Thread(() -> {
+            PrefixIndex events = this.loadPrefixIndex("event names",
+                "SELECT search_name, event_id, startDate FROM events ORDER BY search_name, event_id", 1);
+            PrefixIndex teams = this.loadPrefixIndex("team names",
+                "SELECT search_name, event_id, team_id FROM eventTeams ORDER BY search_name, event_id, team_id", 2);
+            // Only roster entries of registered teams, the ones player searches can read
+            PrefixIndex players = this.loadPrefixIndex("player names",
+                "SELECT r.search_name, r.event_id, r.team_id, r.player_id FROM rosters r " +
+                "INNER JOIN eventTeams et ON r.event_id = et.event_id AND r.team_id = et.team_id " +
+                "ORDER BY r.search_name, r.event_id, r.team_id, r.player_id", 3);
+
+            synchronized (this.nameIndexVersion) {
+                if (this.nameIndexVersion.get() != version) {
+                    // A newer rebuild was started while this one was running
+                    return;
+                }
+
+                this.eventIndex = events;
+                this.teamIndex = teams;
+                this.playerIndex = players;
+            }
+        }, "name-index-builder");
+        // Don't keep the program running once the window is closed
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Reads every name in a table into a new prefix index.
+     * @param name human-readable name of the index.
+     * @param sql a query selecting search_name followed by the id columns of the table's primary key.
+     * @param idColumns the number of id columns selected, 1 for events, 2 for teams, and 3 for players.
+     * @return the new index.
+     */
+    private PrefixIndex loadPrefixIndex(String name, String sql, int idColumns) {
         try (
-                PreparedStatement statement = prepare(sql, ids.stream().map(IDataKey::getFullId).toArray());
-                ResultSet rows = statement.executeQuery();
+            PooledConnection connection = this.borrowConnection();
+            ResultSet rows = prepare(connection, sql).executeQuery();
         ) {
-            Map<String, IEvent> events = new HashMap<>();
+            int size = 0;
+            String[] names = new String[1024];
+            int[] eventIds = new int[1024];
+            int[] teamIds = idColumns > 1 ? new int[1024] : null;
+            int[] playerIds = idColumns > 2 ? new int[1024] : null;
+            // Events are listed newest first, so their start date is read after their id
+            long[] startTimes = idColumns == 1 ? new long[1024] : null;
 
             while (rows.next()) {
-                String compositeEventId = rows.getString("event_id") + "::";
-
-                events.put(compositeEventId, new Event(
-                    rows.getString("event_id"),
-                    rows.getString("remote_id"),
-                    rows.getString("name"),
-                    rows.getString("url"),
-                    // Times stored in the DB are in UTC, LocalDateTime is timezone-less.
-                    // Mark it as UTC so it converts properly later.
-                    rows.getTimestamp("startDate").toLocalDateTime().atZone(ZoneId.of("UTC")),
-                    rows.getInt("teamCount")
-                ));
+                names = PrefixIndex.ensureCapacity(names, size + 1);
+                eventIds = PrefixIndex.ensureCapacity(eventIds, size + 1);
+                teamIds = PrefixIndex.ensureCapacity(teamIds, size + 1);
+                playerIds = PrefixIndex.ensureCapacity(playerIds, size + 1);
+                startTimes = PrefixIndex.ensureCapacity(startTimes, size + 1);
+
+                names[size] = rows.getString(1);
+                eventIds[size] = rows.getInt(2);
+                if (teamIds != null) {
+                    teamIds[size] = rows.getInt(3);
+                }
+                if (playerIds != null) {
+                    playerIds[size] = rows.getInt(4);
+                }
+                if (startTimes != null) {
+                    startTimes[size] = rows.getTimestamp(3).getTime();
+                }
+                size++;
             }
 
-            return events;
+            return new PrefixIndex(name, names, eventIds, teamIds, playerIds, startTimes, size);
         } catch (SQLException e) {
-            throw new RuntimeException("Error while getting events: ", e);
+            throw new RuntimeException("Error while building name index: ", e);
         }
     }
 
     /**
-     * Obtains a map of teams from a list of data keys.
-     * The method will expand the data keys into primary keys if needed.
-     * @param ids An array list of data keys.
-     * @return A map where the keys are full primary keys and the values are team objects.
+     * Loads the objects for a list of primary keys found by a name index, in batches.
+     * @param keys the primary keys to load, all with the same format.
+     * @param loader one of getEvents, getTeams, or getPlayers, used to load each batch.
+     * @return the loaded objects, in the order of their keys.
+     * @param <T> the type of object being loaded.
      */
-    private Map<String, ITeam> getTeams(ArrayList<IDataKey> ids) {
-        // Expand keys into a consistent format (primary keys) if they aren't already
-        // This also validates that the keys are consistent
-        ids = getPrimaryKeys(ids);
+    private <T> ArrayList<T> loadIndexed(ArrayList<IDataKey> keys, Function<ArrayList<IDataKey>, Map<IDataKey, T>> loader) {
+        ArrayList<T> results = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += INDEXED_KEY_BATCH_SIZE) {
+            ArrayList<IDataKey> batch = new ArrayList<>(keys.subList(i, Math.min(keys.size(), i + INDEXED_KEY_BATCH_SIZE)));
+            Map<IDataKey, T> loaded = loader.apply(batch);
+            // Cached objects come back ahead of the ones read from the database, put them back in key order
+            for (IDataKey key : batch) {
+                T result = loaded.get(key);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Obtains a map of events from a list of data keys.
+     * Events already in memory are not read from the database again.
+     * @param ids An array list of event primary keys (E::).
+     * @return A map where the keys are full primary keys and the values are event objects.
+     */
+    private Map<IDataKey, IEvent> getEvents(ArrayList<IDataKey> ids) {
+        // Serve what we can from memory, only query for the rest
+        Map<IDataKey, IEvent> events = new LinkedHashMap<>();
+        ids = this.withoutCached(this.eventCache, "E::", ids, events);
 
         if (ids.isEmpty()) {
             // No values to get
-            return new HashMap<>();
+            return events;
         }
 
-        String keyType = this.getCompositeSQLKey(ids.get(0), "et", "t", "");
-        String sql = String.format("SELECT * FROM eventTeams et INNER JOIN teams t ON et.team_id = t.team_id " +
-            "WHERE %s IN (%s)", keyType,
-            String.join(", ", Collections.nCopies(ids.size(), "?")));
+        ArrayList<Object> args = new ArrayList<>();
+        String condition = this.getKeyPredicate(ids, "e", "", "", args);
+        events.putAll(this.loadEvents(condition, args));
+        return events;
+    }
 
-        HashSet<String> distinctHelper = new HashSet<>();
-        Map<String, IEvent> events = getEvents(ids.stream()
-                .map(k -> k.elevatePrimaryKeyTo("EVENT"))
-                .filter(k -> distinctHelper.add(k.getFullId()))
-                .collect(Collectors.toCollection(ArrayList::new)));
+    /**
+     * Obtains a map of teams from a list of data keys.
+     * Teams already in memory are not read from the database again.
+     * @param ids An array list of data keys containing event and/or team ids.
+     * @return A map where the keys are full primary keys and the values are team objects.
+     */
+    private Map<IDataKey, ITeam> getTeams(ArrayList<IDataKey> ids) {
+        // Serve what we can from memory, only query for the rest
+        Map<IDataKey, ITeam> teams = new LinkedHashMap<>();
+        ids = this.withoutCached(this.teamCache, "E:T:", ids, teams);
 
-        try (
-                PreparedStatement statement = prepare(sql, ids.stream().map(IDataKey::getFullId).toArray());
-                ResultSet rows = statement.executeQuery();
-        ) {
-            Map<String, ITeam> teams = new HashMap<>();
+        if (ids.isEmpty()) {
+            // No values to get
+            return teams;
+        }
 
-            while (rows.next()) {
-                String compositeTeamId = rows.getString("event_id") + ":" + rows.getString("team_id") + ":";
-
-                teams.put(compositeTeamId, new Team(
-                    rows.getString("team_id"),
-                    rows.getString("remote_id"),
-                    rows.getString("name"),
-                    rows.getString("url"),
-                    rows.getInt("reg_order"),
-                    rows.getInt("dropped") != 0,
-                    events.get(rows.getString("event_id") + "::"),
-                    VerificationStatus.idToStatus(rows.getInt("verification_status")),
-                    rows.getString("verification_note")
-                ));
+        ArrayList<Object> args = new ArrayList<>();
+        if (this.spansEvents(ids)) {
+            // Matching each id column separately would also match teams of one event with ids from another,
+            // so each event's teams are read by their own query
+            for (ArrayList<IDataKey> eventIds : this.groupByEvent(ids)) {
+                teams.putAll(this.getTeams(eventIds));
             }
-
             return teams;
-        } catch (SQLException e) {
-            throw new RuntimeException("Error while getting teams: ", e);
         }
+
+        String condition = this.getKeyPredicate(ids, "et", "et", "", args);
+        teams.putAll(this.loadTeams(condition, args, this.getKeyFilter(ids), new IdMap<>()));
+        return teams;
     }
 
     /**
      * Obtains a map of players from a list of data keys.
-     * The method will expand the data keys into primary keys if needed.
-     * @param ids An array list of data keys.
+     * Players already in memory are not read from the database again.
+     * @param ids An array list of data keys, in any format.
+     * @param knownTeams teams that loaded players should be attached to instead of the cached
+     *                   or newly read instance. Teams read for the players are added to it.
      * @return A map where the keys are full primary keys and the values are player objects.
      */
-    private Map<String, IPlayer> getPlayers(ArrayList<IDataKey> ids) {
-        // Expand keys into a consistent format (primary keys) if they aren't already
-        // This also validates that the keys are consistent
-        ids = getPrimaryKeys(ids);
+    private Map<IDataKey, IPlayer> getPlayers(ArrayList<IDataKey> ids, IdMap<ITeam> knownTeams) {
+        // Serve what we can from memory, only query for the rest
+        Map<IDataKey, IPlayer> players = new LinkedHashMap<>();
+        ids = this.withoutCached(this.playerCache, "E:T:P", ids, players);
 
         if (ids.isEmpty()) {
             // No values to get
-            return new HashMap<>();
+            return players;
         }
 
-        String keyType = this.getCompositeSQLKey(ids.get(0), "r", "r", "r");
-        String sql = String.format("SELECT * FROM rosters r INNER JOIN players p ON r.player_id = p.player_id " +
-            "WHERE %s IN (%s)", keyType,
-            String.join(", ", Collections.nCopies(ids.size(), "?")));
+        ArrayList<Object> args = new ArrayList<>();
+        String query = PLAYER_QUERY;
+        String condition;
+        if (ids.stream().allMatch(k -> k.getIdFormat().equals("E:T:P"))) {
+            // Roster entries spread over many events and teams, as found by a name search.
+            // Matching on player id alone lets Derby use the players index, constraining every id column
+            // leads it to scan the whole rosters table. Other entries of the same players are filtered out below.
+            condition = this.getInCondition("r", "player_id", ids, DataKey::getPlayerIdValue, args);
+        } else if (this.spansEvents(ids)) {
+            // Whole rosters of teams in several events, each event's are read by their own query like getTeams
+            for (ArrayList<IDataKey> eventIds : this.groupByEvent(ids)) {
+                players.putAll(this.getPlayers(eventIds, knownTeams));
+            }
+            return players;
+        } else {
+            // Whole rosters, read in the order they are listed in
+            query = ROSTER_QUERY;
+            condition = this.getKeyPredicate(ids, "r", "r", "r", args) + " ORDER BY " + ROSTER_ORDER;
+        }
+        players.putAll(this.loadPlayers(query, condition, args, this.getKeyFilter(ids), knownTeams));
+        return players;
+    }
 
-        HashSet<String> distinctHelper = new HashSet<>();
-        Map<String, ITeam> teams = getTeams(ids.stream()
-                .map(k -> k.elevatePrimaryKeyTo("TEAM"))
-                .filter(k -> distinctHelper.add(k.getFullId()))
-                .collect(Collectors.toCollection(ArrayList::new)));
+    /**
+     * Reads every event matching an SQL condition from the database.
+     * @param condition an SQL condition on the events table (aliased e) usable in a WHERE clause,
+     *                  optionally followed by ORDER BY and FETCH clauses.
+     * @param args values for each placeholder in the condition, in order.
+     * @return A map where the keys are full primary keys and the values are event objects, in the order they were read.
+     */
+    private Map<IDataKey, IEvent> loadEvents(String condition, ArrayList<Object> args) {
+        String sql = EVENT_QUERY + "WHERE " + condition;
 
+        // The statement is cached for reuse, so only the result set is closed
         try (
-            PreparedStatement statement = prepare(sql, ids.stream().map(IDataKey::getFullId).toArray());
-            ResultSet rows = statement.executeQuery();
+            PooledConnection connection = this.borrowConnection();
+            ResultSet rows = prepare(connection, sql, args.toArray()).executeQuery();
         ) {
-            Map<String, IPlayer> players = new HashMap<>();
+            RowMapper row = new RowMapper(rows);
+            IdMap<IEvent> read = new IdMap<>();
+            Map<IDataKey, IEvent> events = new LinkedHashMap<>();
 
             while (rows.next()) {
-                String compositeTeamId = rows.getString("event_id") + ":" + rows.getString("team_id") + ":";
-                String compositePlayerId = rows.getString("event_id") + ":" +
-                        rows.getString("team_id") + ":" +
-                        rows.getString("player_id");
-
-                players.put(compositePlayerId, new Player(
-                    rows.getString("player_id"),
-                    rows.getString("remote_id"),
-                    rows.getString("url"),
-                    rows.getString("name"),
-                    teams.get(compositeTeamId),
-                    VerificationStatus.idToStatus(rows.getInt("verification_status")),
-                    rows.getString("verification_note"),
-                    rows.getInt("dropped") != 0
-                ));
+                IEvent event = this.readEvent(row, read);
+                events.put(event.getFullKey(), event);
             }
 
-            return players;
+            return events;
         } catch (SQLException e) {
-            throw new RuntimeException("Error while getting players: ", e);
+            throw new RuntimeException("Error while getting events: ", e);
         }
     }
 
     /**
-     * Converts a list of consistent (same format) data keys into
-     * a list of data keys that are considered primary keys.
-     * Primary keys have the format E::, E:T:, or E:T:P.
-     * @param keys the data objects to validate and convert.
-     * @return a list of consistent primary key data objects.
+     * Reads every team matching an SQL condition from the database along with their events, in one query.
+     * @param condition an SQL condition on the eventTeams (aliased et), teams (t), and events (e) tables
+     *                  usable in a WHERE clause, optionally followed by ORDER BY and FETCH clauses.
+     * @param args values for each placeholder in the condition, in order.
+     * @param filter only rows whose primary key passes this filter are kept.
+     * @param knownEvents events that loaded teams should be attached to instead of the cached
+     *                    or newly read instance. Events read for the teams are added to it.
+     * @return A map where the keys are full primary keys and the values are team objects, in the order they were read.
      */
-    private ArrayList<IDataKey> getPrimaryKeys(ArrayList<IDataKey> keys) {
-        if (keys.isEmpty()) {
-            return keys;
-        }
+    private Map<IDataKey, ITeam> loadTeams(String condition, ArrayList<Object> args, Predicate<IDataKey> filter,
+                                         IdMap<IEvent> knownEvents) {
+        String sql = TEAM_QUERY + "WHERE " + condition;
 
-        // Validate all keys are of a consistent type
-        IDataKey sampleKey = keys.get(0);
-        if (keys.stream().anyMatch(k -> !k.hasMatchingFormat(sampleKey))) {
-            throw new IllegalArgumentException("Mixed data keys provided.");
-        }
+        // The statement is cached for reuse, so only the result set is closed
+        try (
+            PooledConnection connection = this.borrowConnection();
+            ResultSet rows = prepare(connection, sql, args.toArray()).executeQuery();
+        ) {
+            RowMapper row = new RowMapper(rows);
+            IdMap<ITeam> read = new IdMap<>();
+            Map<IDataKey, ITeam> teams = new LinkedHashMap<>();
 
-        // Determine if we already have a list of primary keys
-        if (sampleKey.isPrimaryKey()) {
-            // A query wouldn't get anything new, just return what we have.
-            return keys;
+            while (rows.next()) {
+                if (!filter.test(row.readTeamKey())) {
+                    // Matched every id column, but not as a combination that was asked for
+                    continue;
+                }
+
+                ITeam team = this.readTeam(row, knownEvents, read);
+                teams.put(team.getFullKey(), team);
+            }
+
+            return teams;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while getting teams: ", e);
         }
+    }
 
-        boolean includesPlayerIds = sampleKey.getIdFormat().contains("P");
-        String sql = String.format("SELECT event_id, team_id%s FROM %s WHERE %s IN (%s)",
-                includesPlayerIds ? ", player_id" : "", // 1. keys to get
-                includesPlayerIds ? "rosters" : "eventTeams", // 2. table to get keys from
-                this.getCompositeSQLKey(sampleKey), // 3. composite key
-                String.join(", ", Collections.nCopies(keys.size(), "?"))); // 4. One ? per value to get
+    /**
+     * Reads every roster entry matching an SQL condition from the database along with
+     * their teams and events, in one query. Teams and events shared by several players are only built once.
+     * @param condition an SQL condition on the rosters (aliased r), players (p), eventTeams (et), teams (t),
+     *                  and events (e) tables usable in a WHERE clause, optionally followed by ORDER BY and FETCH clauses.
+     * @param args values for each placeholder in the condition, in order.
+     * @param filter only rows whose primary key passes this filter are kept.
+     * @param knownTeams teams that loaded players should be attached to instead of the cached
+     *                   or newly read instance. Teams read for the players are added to it.
+     * @return A map where the keys are full primary keys and the values are player objects, in the order they were read.
+     */
+    private Map<IDataKey, IPlayer> loadPlayers(String condition, ArrayList<Object> args, Predicate<IDataKey> filter,
+                                             IdMap<ITeam> knownTeams) {
+        return this.loadPlayers(PLAYER_QUERY, condition, args, filter, knownTeams);
+    }
 
+    /**
+     * Reads every roster entry matching an SQL condition from the database using a given query.
+     * @param query PLAYER_QUERY, ROSTER_QUERY or PARTICIPATION_QUERY.
+     * @param condition an SQL condition on the tables of the query usable in a WHERE clause,
+     *                  optionally followed by ORDER BY and FETCH clauses.
+     * @param args values for each placeholder in the condition, in order.
+     * @param filter only rows whose primary key passes this filter are kept.
+     * @param knownTeams teams that loaded players should be attached to instead of the cached
+     *                   or newly read instance. Teams read for the players are added to it.
+     * @return A map where the keys are full primary keys and the values are player objects, in the order they were read.
+     */
+    private Map<IDataKey, IPlayer> loadPlayers(String query, String condition, ArrayList<Object> args,
+                                             Predicate<IDataKey> filter, IdMap<ITeam> knownTeams) {
+        String sql = query + "WHERE " + condition;
+
+        // The statement is cached for reuse, so only the result set is closed
         try (
-                PreparedStatement statement = prepare(sql, keys.stream().map(IDataKey::getFullId).toArray());
-                ResultSet rows = statement.executeQuery();
+            PooledConnection connection = this.borrowConnection();
+            ResultSet rows = prepare(connection, sql, args.toArray()).executeQuery();
         ) {
-            ArrayList<IDataKey> primaryKeys = new ArrayList<>();
+            RowMapper row = new RowMapper(rows);
+            IdMap<IEvent> events = new IdMap<>();
+            Map<IDataKey, IPlayer> players = new LinkedHashMap<>();
 
             while (rows.next()) {
-                String playerId = null;
-                try {
-                    playerId = rows.getString("player_id");
-                } catch (SQLException ignored) {} // If the column isn't present, keep it as null
+                IDataKey key = row.readPlayerKey();
+                if (!filter.test(key)) {
+                    // Matched every id column, but not as a combination that was asked for
+                    continue;
+                }
 
-                primaryKeys.add(new DataKey(rows.getString("event_id"),
-                        rows.getString("team_id"),
-                        playerId));
+                players.put(key, this.readPlayer(row, key, events, knownTeams));
             }
 
-            return primaryKeys;
+            return players;
         } catch (SQLException e) {
-            throw new RuntimeException("Error while getting primary keys: ", e);
+            throw new RuntimeException("Error while getting players: ", e);
+        }
+    }
+
+    /**
+     * Runs a query and streams the objects built from its rows, reading each row only when the stream asks for it.
+     * The connection stays borrowed until every row has been read or the stream is closed.
+     * @param sql the query to run.
+     * @param reader builds the object for each row.
+     * @param args values for each placeholder in the query, in order.
+     * @return a stream of the objects built from each row, in the order they were read.
+     * @param <T> the type of object built from each row.
+     */
+    private <T> Stream<T> stream(String sql, ResultSetIterator.RowReader<T> reader, Object... args) {
+        PooledConnection connection = this.borrowConnection();
+        ResultSet rows = null;
+        RowMapper row;
+        try {
+            // The statement is cached for reuse, so only the result set is closed, by the iterator
+            rows = prepare(connection, sql, args).executeQuery();
+            row = new RowMapper(rows);
+        } catch (SQLException | RuntimeException e) {
+            if (rows != null) {
+                try {
+                    rows.close();
+                } catch (SQLException ignored) {} // The connection is returned either way
+            }
+            connection.close();
+            throw new RuntimeException("Error while starting stream: ", e);
         }
+
+        ResultSetIterator<T> iterator = new ResultSetIterator<>(connection, rows, row, reader);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(iterator::close);
     }
 
     /**
-     * Converts a data key into the necessary SQL statement to fetch similar keys from the database.
-     * Returned strings are in the form of "s:s:s" where s is a statement like TRIM(STR(event_id)) or empty.
-     * @param key a data key
-     * @return a string containing an SQL statement usable in a WHILE statement to fetch similar keys.
+     * Builds the player (and its team and event) described by the current row of a result set containing
+     * EVENT_COLUMNS, TEAM_COLUMNS, and PLAYER_COLUMNS.
+     * Reuses the player if it is cached against the same instance of its team.
+     * @param row the mapper for the result set, positioned on the row to read.
+     * @param events events already read by this query. The player's event is added if it is new.
+     * @param teams teams already read by this query. The player's team is added if it is new.
+     * @return the player for the current row.
+     * @throws SQLException if the row can't be read.
      */
-    private String getCompositeSQLKey(IDataKey key) {
-        return this.getCompositeSQLKey(key, "", "", "");
+    private IPlayer readPlayer(RowMapper row, IdMap<IEvent> events, IdMap<ITeam> teams) throws SQLException {
+        return this.readPlayer(row, row.readPlayerKey(), events, teams);
     }
 
     /**
-     * Converts a data key into the necessary SQL statement to fetch similar keys from the database.
-     * Returned strings are in the form of "s:s:s" where s is a statement like TRIM(STR(event_id)) or empty.
-     * @param key a data key
+     * Builds the player described by the current row, when its primary key has already been read.
+     * @param row the mapper for the result set, positioned on the row to read.
+     * @param key the primary key of the player in the current row.
+     * @param events events already read by this query. The player's event is added if it is new.
+     * @param teams teams already read by this query. The player's team is added if it is new.
+     * @return the player for the current row.
+     * @throws SQLException if the row can't be read.
+     */
+    private IPlayer readPlayer(RowMapper row, IDataKey key, IdMap<IEvent> events, IdMap<ITeam> teams)
+            throws SQLException {
+        ITeam team = this.readTeam(row, events, teams);
+        IPlayer player = this.playerCache.get(key);
+        if (player != null && player.getTeam() == team) {
+            return player;
+        }
+
+        // Either not cached, or cached against a different instance of the team, which this one replaces
+        player = row.readPlayer(team);
+        this.playerCache.put(player);
+        return player;
+    }
+
+    /**
+     * Builds the event described by the current row of a result set containing EVENT_COLUMNS.
+     * Reuses the event if it was already read by this query or is cached, in which case the row's values are ignored.
+     * @param row the mapper for the result set, positioned on the row to read.
+     * @param events events already read by this query. The event is added if it is new.
+     * @return the event for the current row.
+     * @throws SQLException if the row can't be read.
+     */
+    private IEvent readEvent(RowMapper row, IdMap<IEvent> events) throws SQLException {
+        int eventId = row.readEventId();
+        IEvent event = events.get(IdMap.key(eventId));
+        if (event != null) {
+            return event;
+        }
+
+        event = this.eventCache.get(DataKey.ofEvent(eventId));
+        if (event == null) {
+            event = this.eventCache.putIfAbsent(row.readEvent());
+        }
+        events.put(IdMap.key(eventId), event);
+        return event;
+    }
+
+    /**
+     * Builds the team (and its event) described by the current row of a result set containing
+     * EVENT_COLUMNS and TEAM_COLUMNS.
+     * Reuses the team if it was already read by this query, or is cached against the same instance of its event,
+     * in which case the row's values are ignored.
+     * @param row the mapper for the result set, positioned on the row to read.
+     * @param events events already read by this query. The team's event is added if it is new.
+     * @param teams teams already read by this query. The team is added if it is new.
+     * @return the team for the current row.
+     * @throws SQLException if the row can't be read.
+     */
+    private ITeam readTeam(RowMapper row, IdMap<IEvent> events, IdMap<ITeam> teams) throws SQLException {
+        int eventId = row.readEventId();
+        int teamId = row.readTeamId();
+        ITeam team = teams.get(IdMap.key(eventId, teamId));
+        if (team != null) {
+            return team;
+        }
+
+        IEvent event = this.readEvent(row, events);
+        team = this.teamCache.get(DataKey.ofTeam(eventId, teamId));
+        if (team == null || team.getEvent() != event) {
+            Team created = row.readTeam(event);
+            team = team == null ? this.teamCache.putIfAbsent(created) : null;
+            if (team == null || team.getEvent() != event) {
+                // Cached against a different instance of the event, which this one replaces
+                this.teamCache.put(created);
+                team = created;
+            }
+        }
+        teams.put(IdMap.key(eventId, teamId), team);
+        return team;
+    }
+
+    /**
+     * Looks up primary keys in one of the object caches, adding any cached objects to the results.
+     * Keys that are not primary keys for the cached type can't be looked up and are always returned.
+     * @param cache the cache to look in.
+     * @param format the format of the cached type's primary keys, such as E:T:.
+     * @param keys the data keys of the objects to find, all with the same format.
+     * @param results map of full primary keys to objects that any cached objects are added to.
+     * @return the keys that still need to be read from the database.
+     * @param <T> the type of data object stored in the cache.
+     */
+    private <T extends IDataObject> ArrayList<IDataKey> withoutCached(ObjectCache<T> cache, String format,
+                                                                      ArrayList<IDataKey> keys, Map<IDataKey, T> results) {
+        if (keys.isEmpty() || !keys.get(0).getIdFormat().equals(format)) {
+            return keys;
+        }
+
+        ArrayList<IDataKey> missing = new ArrayList<>();
+        for (IDataKey key : keys) {
+            T cached = cache.get(key);
+            if (cached != null) {
+                results.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+
+        return missing;
+    }
+
+    /**
+     * Converts a list of consistent (same format) data keys into an SQL condition that matches their rows.
+     * Each id column in the keys' format is compared against the distinct integer ids found in the keys,
+     * for example "event_id IN (?, ?) AND team_id IN (?)", which lets Derby seek through the indexes on those columns.
+     * Keys with more than one id column can match extra rows (1:2: and 3:4: also match 1:4: and 3:2:),
+     * so callers must check each returned row against the keys they asked for.
+     * @param keys the data keys to match, all with the same format.
      * @param eventPrefix prefix used for the table where event_id will come from in the SQL query.
      * @param teamPrefix prefix used for the table where team_id will come from in the SQL query.
      * @param playerPrefix prefix used for the table where player_id will come from in the SQL query.
-     * @return a string containing an SQL statement usable in a WHILE statement to fetch similar keys.
+     * @param args list that the values for each placeholder in the condition are added to, in order.
+     * @return a string containing an SQL condition usable in a WHERE clause.
      */
-    private String getCompositeSQLKey(IDataKey key, String eventPrefix, String teamPrefix, String playerPrefix) {
-        String format = key.getIdFormat();
-        String keyType = "";
+    private String getKeyPredicate(ArrayList<IDataKey> keys, String eventPrefix, String teamPrefix,
+                                   String playerPrefix, ArrayList<Object> args) {
+        // Validate all keys are of a consistent type
+        IDataKey sampleKey = keys.get(0);
+        if (keys.stream().anyMatch(k -> !k.hasMatchingFormat(sampleKey))) {
+            throw new IllegalArgumentException("Mixed data keys provided.");
+        }
 
-        if (format.contains("E")) {
-            if (eventPrefix.length() > 0) {
-                eventPrefix += ".";
-            }
+        String format = sampleKey.getIdFormat();
+        ArrayList<String> conditions = new ArrayList<>();
 
-            keyType += "TRIM(CAST(" + eventPrefix + "event_id AS CHAR(10))) || ':";
-        } else {
-            keyType += "':";
+        if (format.contains("E")) {
+            conditions.add(this.getInCondition(eventPrefix, "event_id", keys, DataKey::getEventIdValue, args));
         }
 
         if (format.contains("T")) {
-            if (teamPrefix.length() > 0) {
-                teamPrefix += ".";
-            }
-
-            keyType += "' || TRIM(CAST(" + teamPrefix + "team_id AS CHAR(10))) || ':";
-        } else {
-            keyType += ":";
+            conditions.add(this.getInCondition(teamPrefix, "team_id", keys, DataKey::getTeamIdValue, args));
         }
 
         if (format.contains("P")) {
-            if (playerPrefix.length() > 0) {
-                playerPrefix += ".";
-            }
+            conditions.add(this.getInCondition(playerPrefix, "player_id", keys, DataKey::getPlayerIdValue, args));
+        }
 
-            keyType += "' || TRIM(CAST(" + playerPrefix + "player_id AS CHAR(10)))";
-        } else {
-            keyType += "'";
+        return String.join(" AND ", conditions);
+    }
+
+    /**
+     * Builds an SQL "column IN (?, ...)" condition for one id column of a list of data keys.
+     * The list of placeholders is padded up to the next power of two by repeating the last id,
+     * so any number of keys produces one of a handful of SQL strings and the compiled statement can be reused.
+     * @param prefix prefix used for the table the column will come from in the SQL query, may be empty.
+     * @param column the id column to compare.
+     * @param keys the data keys to take the ids from.
+     * @param id the getter for the id to take from each key.
+     * @param args list that the distinct ids are added to as integers, in order.
+     * @return a string containing the SQL condition.
+     */
+    private String getInCondition(String prefix, String column, ArrayList<IDataKey> keys,
+                                  ToIntFunction<DataKey> id, ArrayList<Object> args) {
+        ArrayList<Integer> values = keys.stream()
+                .map(DataKey::of)
+                .mapToInt(id)
+                .distinct()
+                .boxed()
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        // Duplicate ids in an IN list don't change the result
+        int bucketSize = Integer.highestOneBit(values.size());
+        if (bucketSize < values.size()) {
+            bucketSize <<= 1;
         }
+        args.addAll(values);
+        args.addAll(Collections.nCopies(bucketSize - values.size(), values.get(values.size() - 1)));
+
+        return String.format("%s%s IN (%s)", prefix.isEmpty() ? "" : prefix + ".", column,
+                String.join(", ", Collections.nCopies(bucketSize, "?")));
+    }
+
+    /**
+     * Determines if a list of data keys with more than one id column has keys in more than one event.
+     * getKeyPredicate matches each id column separately, so for such keys it can match every combination of their
+     * ids. Derby can't seek through an index for an OR of per-event conditions, so callers split them by event.
+     * @param keys the data keys, all with the same format.
+     * @return true if the keys have a team or player id and more than one event id.
+     */
+    private boolean spansEvents(ArrayList<IDataKey> keys) {
+        DataKey sampleKey = DataKey.of(keys.get(0));
+        if (!sampleKey.getIdFormat().startsWith("E:") || sampleKey.getIdFormat().equals("E::")) {
+            return false;
+        }
+
+        return keys.stream().anyMatch(k -> DataKey.of(k).getEventIdValue() != sampleKey.getEventIdValue());
+    }
 
-        return keyType;
+    /**
+     * Split a list of data keys into one list per event.
+     * @param keys the data keys, all with an event id.
+     * @return the keys of each event, in the order each event first appears.
+     */
+    private Collection<ArrayList<IDataKey>> groupByEvent(ArrayList<IDataKey> keys) {
+        return keys.stream().collect(Collectors.groupingBy(k -> DataKey.of(k).getEventIdValue(), LinkedHashMap::new,
+                Collectors.toCollection(ArrayList::new))).values();
+    }
+
+    /**
+     * Creates a filter that accepts the primary keys of rows that were actually asked for by a list of data keys.
+     * Used alongside getKeyPredicate, which can match extra combinations of ids.
+     * @param keys the data keys that were asked for, all with the same format.
+     * @return a filter that accepts primary keys matching one of the data keys.
+     */
+    private Predicate<IDataKey> getKeyFilter(ArrayList<IDataKey> keys) {
+        DataKey sampleKey = DataKey.of(keys.get(0));
+        HashSet<DataKey> requested = keys.stream().map(DataKey::of)
+                .collect(Collectors.toCollection(HashSet::new));
+        return key -> requested.contains(DataKey.of(key).reduceTo(sampleKey));
+    }
+
+    /**
+     * Borrow a connection from the pool, handles SQLExceptions.
+     * The connection must be closed to return it to the pool.
+     * @return a connection only the current thread can use.
+     */
+    private PooledConnection borrowConnection() {
+        try {
+            return this.pool.borrow();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while connecting to database: ", e);
+        }
     }
 
     /**
-     * Enable or disable autocommit, handles SQLExceptions.
+     * Enable or disable autocommit on a borrowed connection, handles SQLExceptions.
+     * @param connection the borrowed connection.
      * @param status true to enable, false to disable.
      */
-    private void setAutoCommit(boolean status) {
+    private void setAutoCommit(PooledConnection connection, boolean status) {
         try {
-            this.connection.setAutoCommit(status);
+            connection.getConnection().setAutoCommit(status);
         } catch (SQLException e) {
             throw new RuntimeException("Error while setting auto commit status: ", e);
         }
     }
 
     /**
-     * Rollback any ongoing transaction and handle any SQLExceptions.
+     * Rollback any ongoing transaction on a borrowed connection and handle any SQLExceptions.
+     * @param connection the borrowed connection.
      */
-    private void rollbackTransaction() {
+    private void rollbackTransaction(PooledConnection connection) {
         try {
-            this.connection.rollback();
+            connection.getConnection().rollback();
         } catch (SQLException e) {
             throw new RuntimeException("Error while rolling back transaction: ", e);
         }
@@ -2,6 +2,7 @@ package edu.liberty.andrewwerner.iplverification.model;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 import java.util.TimeZone;
 
 /**
@@ -11,13 +12,13 @@ import java.util.TimeZone;
  * @author Andrew Werner
  */
 public final class Event implements IEvent {
-    private final String eventId;
     private final String remoteId;
     private final String name;
     private final String url;
     private final ZonedDateTime startDate;
     private final int teamCount;
-    private final IDataKey dataKey;
+    // Also holds the event's id
+    private final DataKey dataKey;
 
     /**
      * Creates a new Event object. Can only be done within the model package.
@@ -28,19 +29,18 @@ public final class Event implements IEvent {
      * @param startDate Date and Time the event starts.
      * @param teamCount Number of teams currently registered.
      */
-    Event(String eventId, String remoteId, String name, String url, ZonedDateTime startDate, int teamCount) {
-        this.eventId = eventId;
+    Event(int eventId, String remoteId, String name, String url, ZonedDateTime startDate, int teamCount) {
         this.remoteId = remoteId;
         this.name = name;
         this.url = url;
         this.startDate = startDate;
         this.teamCount = teamCount;
-        this.dataKey = new DataKey(eventId, null, null);
+        this.dataKey = DataKey.ofEvent(eventId);
     }
 
     @Override
     public String getId() {
-        return this.eventId;
+        return this.dataKey.getEventId();
     }
 
     @Override
@@ -89,7 +89,14 @@ public final class Event implements IEvent {
             return timeResult;
         }
 
-        // In the event two events start at the same time, sort alphabetically
-        return this.getName().compareTo(otherEvent.getName());
+        // In the event two events start at the same time, sort alphabetically ignoring case, then by id,
+        // the order event searches use
+        int nameResult = this.getName().toLowerCase(Locale.ROOT)
+            .compareTo(otherEvent.getName().toLowerCase(Locale.ROOT));
+        if (nameResult != 0) {
+            return nameResult;
+        }
+
+        return Integer.compare(this.dataKey.getEventIdValue(), DataKey.of(otherEvent.getFullKey()).getEventIdValue());
     }
 }
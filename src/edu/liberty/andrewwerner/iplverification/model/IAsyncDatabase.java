@@ -0,0 +1,237 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface IAsyncDatabase
+ * Non-blocking counterpart to IDatabase. Every method starts its work on a background thread
+ * and immediately returns a future that completes with the result, so the caller's thread
+ * (usually the Swing event dispatch thread) is never held up by the database.
+ * Futures are completed on a background thread, callers are responsible for handing results
+ * back to the event dispatch thread before touching the GUI.
+ * Cancelling the future of a read cancels the read, along with the query it is running, so reads can be
+ * started together and abandoned together. Updates are always carried out, even if their future is cancelled.
+ * See IDatabase for details of what each method does. IDatabase's streams have no counterpart here,
+ * as they are read by whichever thread consumes them.
+ *
+ * @author Andrew Werner
+ */
+public interface IAsyncDatabase {
+    /**
+     * Search for events based on a provided (but optional) query.
+     * @param query the query to search with. Will match any event names that start with this value.
+     * @return a future completing with a list of events that matched the query.
+     */
+    CompletableFuture<ArrayList<IEvent>> searchEvents(String query);
+
+    /**
+     * Search for teams based on a provided (but optional) query.
+     * @param query the query to search with. Will match any team names that start with this value.
+     * @return a future completing with a list of teams that matched the query.
+     */
+    CompletableFuture<ArrayList<ITeam>> searchTeams(String query);
+
+    /**
+     * Search for players based on a provided (but optional) query.
+     * @param query the query to search with. Will match any players names that start with this value.
+     * @return a future completing with a list of players that matched the query.
+     */
+    CompletableFuture<ArrayList<IPlayer>> searchPlayers(String query);
+
+    /**
+     * Get one page of the events matching a search, newest first, then by name.
+     * @param query the query to search with. Will match any event names that start with this value.
+     * @param pageSize the maximum number of events on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a future completing with a page of events that matched the query.
+     */
+    CompletableFuture<Page<IEvent>> searchEvents(String query, int pageSize, String continuationToken);
+
+    /**
+     * Get one page of the teams matching a search, ordered by name.
+     * @param query the query to search with. Will match any team names that start with this value.
+     * @param pageSize the maximum number of teams on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a future completing with a page of teams that matched the query.
+     */
+    CompletableFuture<Page<ITeam>> searchTeams(String query, int pageSize, String continuationToken);
+
+    /**
+     * Get one page of the players matching a search, ordered by name.
+     * @param query the query to search with. Will match any player names that start with this value.
+     * @param pageSize the maximum number of players on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a future completing with a page of players that matched the query.
+     */
+    CompletableFuture<Page<IPlayer>> searchPlayers(String query, int pageSize, String continuationToken);
+
+    /**
+     * Count the events matching a search without loading them, stopping once the limit is reached.
+     * @param query the query to search with. Will match any event names that start with this value.
+     * @param limit the most events to count.
+     * @return a future completing with the number of events that match the query, or limit if at least that many do.
+     */
+    CompletableFuture<Integer> countEvents(String query, int limit);
+
+    /**
+     * Count the teams matching a search without loading them, stopping once the limit is reached.
+     * @param query the query to search with. Will match any team names that start with this value.
+     * @param limit the most teams to count.
+     * @return a future completing with the number of teams that match the query, or limit if at least that many do.
+     */
+    CompletableFuture<Integer> countTeams(String query, int limit);
+
+    /**
+     * Count the players matching a search without loading them, stopping once the limit is reached.
+     * @param query the query to search with. Will match any player names that start with this value.
+     * @param limit the most players to count.
+     * @return a future completing with the number of players that match the query, or limit if at least that many do.
+     */
+    CompletableFuture<Integer> countPlayers(String query, int limit);
+
+    /**
+     * Get all teams associated with a specific event, in registration order.
+     * @param event the event to get teams for.
+     * @param query the query to search with. Will match any teams names that start with this value.
+     * @param status if not null, only teams that have the provided verification status will be returned.
+     * @param includeDropped if true, dropped teams will be included.
+     * @return a future completing with a list of teams that meet the filters provided.
+     */
+    CompletableFuture<ArrayList<ITeam>> getEventTeams(IEvent event, String query, VerificationStatus status,
+                                                      boolean includeDropped);
+
+    /**
+     * Get one page of the teams associated with a specific event, in registration order.
+     * @param event the event to get teams for.
+     * @param query the query to search with. Will match any teams names that start with this value.
+     * @param status if not null, only teams that have the provided verification status will be returned.
+     * @param includeDropped if true, dropped teams will be included.
+     * @param pageSize the maximum number of teams on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a future completing with a page of teams that meet the filters provided.
+     */
+    CompletableFuture<Page<ITeam>> getEventTeams(IEvent event, String query, VerificationStatus status,
+                                                 boolean includeDropped, int pageSize, String continuationToken);
+
+    /**
+     * Count the teams associated with a specific event that meet the filters provided, without loading them.
+     * @param event the event to count teams for.
+     * @param query the query to search with. Will match any teams names that start with this value.
+     * @param status if not null, only teams that have the provided verification status will be counted.
+     * @param includeDropped if true, dropped teams will be counted.
+     * @return a future completing with the number of teams that meet the filters provided.
+     */
+    CompletableFuture<Integer> countEventTeams(IEvent event, String query, VerificationStatus status,
+                                               boolean includeDropped);
+
+    /**
+     * Gets a list of players associated with a team.
+     * @param team the team to get players from.
+     * @return a future completing with a list of players on that team.
+     */
+    CompletableFuture<ArrayList<IPlayer>> getTeamMembers(ITeam team);
+
+    /**
+     * Gets a list of player objects representing a given player's participation
+     * in events during the last 3 months.
+     * @param player The player to base the list on.
+     * @return a future completing with the list of player objects.
+     */
+    CompletableFuture<ArrayList<IPlayer>> getRecentParticipationFor(IPlayer player);
+
+    /**
+     * Gets a list of player objects representing a given player's participation in events
+     * that started within a given window, optionally only in events whose names start with a query.
+     * @param player The player to base the list on. This instance of the player is not included.
+     * @param window how far back from now to look for events, by their start date.
+     * @param eventQuery only include events with names starting with this value, ignoring case.
+     * @return a future completing with the list of player objects.
+     */
+    CompletableFuture<ArrayList<IPlayer>> getRecentParticipationFor(IPlayer player, Period window, String eventQuery);
+
+    /**
+     * Load the roster of the provided list of teams.
+     * @param teams list of teams to load rosters for.
+     * @return a future completing with the same list of teams once their rosters are loaded,
+     * so it can be chained after a method that returns teams.
+     */
+    CompletableFuture<ArrayList<ITeam>> populateRosters(ArrayList<ITeam> teams);
+
+    /**
+     * Update a team's verification details in both the database and team object itself.
+     * When write-behind is enabled, the team object is updated before this returns, and the future
+     * completes once the change has been written.
+     * @param team the team to update.
+     * @param status new verification status.
+     * @param note new verification note.
+     * @return a future completing with a human-readable string of text indicating the result.
+     */
+    CompletableFuture<String> updateTeamVerification(ITeam team, VerificationStatus status, String note);
+
+    /**
+     * Update a team's verification details, optionally cascading the new status to the team's unverified players.
+     * @param team the team to update.
+     * @param status new verification status.
+     * @param note new verification note.
+     * @param cascade if true, also set the status of the team's unverified players.
+     * @return a future completing with a human-readable string of text indicating the result.
+     */
+    CompletableFuture<String> updateTeamVerification(ITeam team, VerificationStatus status, String note,
+                                                     boolean cascade);
+
+    /**
+     * Update a player's verification details in both the database and player object itself.
+     * When write-behind is enabled, the player object is updated before this returns, and the future
+     * completes once the change has been written.
+     * @param player the player to update.
+     * @param status new verification status.
+     * @param note new verification note.
+     * @return a future completing with a human-readable string of text indicating the result.
+     */
+    CompletableFuture<String> updatePlayerVerification(IPlayer player, VerificationStatus status, String note);
+
+    /**
+     * Update the verification details of several teams in a single transaction.
+     * @param updates the teams to update, along with each one's new status and note.
+     * @return a future completing with a human-readable string of text indicating the result of each update.
+     */
+    CompletableFuture<ArrayList<String>> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates);
+
+    /**
+     * Update the verification details of several teams in a single transaction,
+     * optionally cascading each new status to the team's unverified players.
+     * @param updates the teams to update, along with each one's new status and note.
+     * @param cascade if true, also set the status of each team's unverified players.
+     * @return a future completing with a human-readable string of text indicating the result of each update.
+     */
+    CompletableFuture<ArrayList<String>> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates,
+                                                                 boolean cascade);
+
+    /**
+     * Update the verification details of several players in a single transaction.
+     * @param updates the players to update, along with each one's new status and note.
+     * @return a future completing with a human-readable string of text indicating the result of each update.
+     */
+    CompletableFuture<ArrayList<String>> updatePlayerVerifications(ArrayList<VerificationUpdate<IPlayer>> updates);
+
+    /**
+     * Updates an event in the database with new information from the API.
+     * @param event the event to fetch registrants for.
+     * @return a future completing with a string describing the result (error, success message).
+     */
+    CompletableFuture<String> fetchEventRegistrants(IEvent event);
+
+    /**
+     * Updates the database with event information from the API.
+     * @return a future completing with a string describing the result (error, success message).
+     */
+    CompletableFuture<String> fetchNewEvents();
+
+    /**
+     * Are single team and player verification changes applied immediately and written to the database later?
+     * @return true if write-behind is enabled.
+     */
+    boolean isWriteBehind();
+}
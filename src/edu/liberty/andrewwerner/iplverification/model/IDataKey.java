@@ -5,6 +5,7 @@ package edu.liberty.andrewwerner.iplverification.model;
  * Represents a full key used by the database.
  * Keys consist of three sections in the form of E:T:P and at least one must be filled.
  * Primary keys (representing 1 row in the applicable table in the database) are E::, E:T:, and E:T:P keys.
+ * Keys with the same ids are equal, so keys can be used directly as map keys.
  *
  * @author Andrew Werner
  */
@@ -1,6 +1,8 @@
 package edu.liberty.andrewwerner.iplverification.model;
 
+import java.time.Period;
 import java.util.ArrayList;
+import java.util.stream.Stream;
 
 /**
  * Interface IDatabase
@@ -31,7 +33,94 @@ public interface IDatabase {
     ArrayList<IPlayer> searchPlayers(String query);
 
     /**
-     * Get all teams associated with a specific event.
+     * Get one page of the events matching a search, newest first, then by name.
+     * Only the requested page is read from the database, so a blank query costs no more than a narrow one.
+     * @param query the query to search with. Will match any event names that start with this value.
+     * @param pageSize the maximum number of events on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of events that matched the query.
+     */
+    Page<IEvent> searchEvents(String query, int pageSize, String continuationToken);
+
+    /**
+     * Get one page of the teams matching a search, ordered by name.
+     * Only the requested page is read from the database, so a blank query costs no more than a narrow one.
+     * @param query the query to search with. Will match any team names that start with this value.
+     * @param pageSize the maximum number of teams on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of teams that matched the query.
+     */
+    Page<ITeam> searchTeams(String query, int pageSize, String continuationToken);
+
+    /**
+     * Get one page of the players matching a search, ordered by name.
+     * Only the requested page is read from the database, so a blank query costs no more than a narrow one.
+     * @param query the query to search with. Will match any player names that start with this value.
+     * @param pageSize the maximum number of players on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of players that matched the query.
+     */
+    Page<IPlayer> searchPlayers(String query, int pageSize, String continuationToken);
+
+    /**
+     * Count the events matching a search without loading them, stopping once the limit is reached.
+     * Only up to limit matches are read, so a blank query costs no more to count than a narrow one.
+     * @param query the query to search with. Will match any event names that start with this value.
+     * @param limit the most events to count.
+     * @return the number of events that match the query, or limit if at least that many do.
+     */
+    int countEvents(String query, int limit);
+
+    /**
+     * Count the teams matching a search without loading them, stopping once the limit is reached.
+     * Only up to limit matches are read, so a blank query costs no more to count than a narrow one.
+     * @param query the query to search with. Will match any team names that start with this value.
+     * @param limit the most teams to count.
+     * @return the number of teams that match the query, or limit if at least that many do.
+     */
+    int countTeams(String query, int limit);
+
+    /**
+     * Count the players matching a search without loading them, stopping once the limit is reached.
+     * Only up to limit matches are read, so a blank query costs no more to count than a narrow one.
+     * @param query the query to search with. Will match any player names that start with this value.
+     * @param limit the most players to count.
+     * @return the number of players that match the query, or limit if at least that many do.
+     */
+    int countPlayers(String query, int limit);
+
+    /**
+     * Stream every event matching a search, newest first, then by name.
+     * Events are read from the database only as the stream is consumed, so memory use does not grow with the
+     * number of results. The stream holds a database connection until every event has been read or it is closed,
+     * so it should be closed, for example by a try-with-resources statement.
+     * @param query the query to search with. Will match any event names that start with this value.
+     * @return a stream of events that match the query.
+     */
+    Stream<IEvent> streamEvents(String query);
+
+    /**
+     * Stream every team matching a search, ordered by name.
+     * Teams are read from the database only as the stream is consumed, so memory use does not grow with the
+     * number of results. The stream holds a database connection until every team has been read or it is closed,
+     * so it should be closed, for example by a try-with-resources statement.
+     * @param query the query to search with. Will match any team names that start with this value.
+     * @return a stream of teams that match the query.
+     */
+    Stream<ITeam> streamTeams(String query);
+
+    /**
+     * Stream every player matching a search, ordered by name.
+     * Players are read from the database only as the stream is consumed, so memory use does not grow with the
+     * number of results. The stream holds a database connection until every player has been read or it is closed,
+     * so it should be closed, for example by a try-with-resources statement.
+     * @param query the query to search with. Will match any player names that start with this value.
+     * @return a stream of players that match the query.
+     */
+    Stream<IPlayer> streamPlayers(String query);
+
+    /**
+     * Get all teams associated with a specific event, in registration order.
      * Optionally you can filter the list of teams based on name, verification status, and if they dropped.
      * @param event the event to get teams for.
      * @param query the query to search with. Will match any teams names that start with this value.
@@ -41,12 +130,35 @@ public interface IDatabase {
      */
     ArrayList<ITeam> getEventTeams(IEvent event, String query, VerificationStatus status, boolean includeDropped);
 
+    /**
+     * Get one page of the teams associated with a specific event, in registration order.
+     * @param event the event to get teams for.
+     * @param query the query to search with. Will match any teams names that start with this value.
+     * @param status if not null, only teams that have the provided verification status will be returned.
+     * @param includeDropped if true, dropped teams will be included.
+     * @param pageSize the maximum number of teams on the page.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of teams that meet the filters provided.
+     */
+    Page<ITeam> getEventTeams(IEvent event, String query, VerificationStatus status, boolean includeDropped,
+                              int pageSize, String continuationToken);
+
+    /**
+     * Count the teams associated with a specific event that meet the filters provided, without loading them.
+     * @param event the event to count teams for.
+     * @param query the query to search with. Will match any teams names that start with this value.
+     * @param status if not null, only teams that have the provided verification status will be counted.
+     * @param includeDropped if true, dropped teams will be counted.
+     * @return the number of teams that meet the filters provided.
+     */
+    int countEventTeams(IEvent event, String query, VerificationStatus status, boolean includeDropped);
+
     /**
      * Gets a list of players associated with a team.
      * Remember that teams are associated with an event. So the returned players will be
      * on a specific instance of the team that participated in a specific event.
      * @param team the team to get players from.
-     * @return a list of players on that team.
+     * @return a list of players on that team, ordered by name.
      */
     ArrayList<IPlayer> getTeamMembers(ITeam team);
 
@@ -58,9 +170,26 @@ public interface IDatabase {
      */
     ArrayList<IPlayer> getRecentParticipationFor(IPlayer player);
 
+    /**
+     * Gets a list of player objects representing a given player's participation in events
+     * that started within a given window, optionally only in events whose names start with a query.
+     * Only the matching roster entries are read from the database.
+     * @param player The player to base the list on. This instance of the player is not included.
+     * @param window how far back from now to look for events, by their start date.
+     * @param eventQuery only include events with names starting with this value, ignoring case.
+     *                   An empty query includes every event.
+     * @return the list of player objects, with their events in the order of an event search (newest first,
+     *         then by name), then by the order of each event's teams.
+     */
+    ArrayList<IPlayer> getRecentParticipationFor(IPlayer player, Period window, String eventQuery);
+
     /**
      * Load the roster of the provided list of teams.
      * This isn't done by default to avoid unintentional recursion.
+     * Teams that already have a roster loaded are left as they are.
+     * Rosters are loaded ordered by player name.
+     * Safe to call from several threads with the same teams, each roster is read once and set in full,
+     * and calls wait for rosters another call is loading.
      * @param teams list of teams to load rosters for.
      */
     void populateRosters(ArrayList<ITeam> teams);
@@ -74,6 +203,20 @@ public interface IDatabase {
      */
     String updateTeamVerification(ITeam team, VerificationStatus status, String note);
 
+    /**
+     * Update a team's verification details in both the database and team object itself,
+     * optionally cascading the new status to the team's roster.
+     * When cascading, every player on the team whose own status is still Unverified is given the team's new status
+     * in the same transaction, so rosters read directly from the database match what the application displays.
+     * Those players then keep that status if the team's status changes again later.
+     * @param team the team to update.
+     * @param status new verification status.
+     * @param note new verification note.
+     * @param cascade if true, also set the status of the team's unverified players.
+     * @return human-readable string of text indicating the result.
+     */
+    String updateTeamVerification(ITeam team, VerificationStatus status, String note, boolean cascade);
+
     /**
      * Update a player's verification details in both the database and player object itself.
      * @param player the player to update.
@@ -83,6 +226,31 @@ public interface IDatabase {
      */
     String updatePlayerVerification(IPlayer player, VerificationStatus status, String note);
 
+    /**
+     * Update the verification details of several teams, in both the database and the team objects themselves.
+     * Every change is saved in a single transaction.
+     * @param updates the teams to update, along with each one's new status and note.
+     * @return a human-readable string of text indicating the result of each update, in the same order.
+     */
+    ArrayList<String> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates);
+
+    /**
+     * Update the verification details of several teams, optionally cascading each new status to the team's roster.
+     * See updateTeamVerification for how a status is cascaded. Every change is saved in a single transaction.
+     * @param updates the teams to update, along with each one's new status and note.
+     * @param cascade if true, also set the status of each team's unverified players.
+     * @return a human-readable string of text indicating the result of each update, in the same order.
+     */
+    ArrayList<String> updateTeamVerifications(ArrayList<VerificationUpdate<ITeam>> updates, boolean cascade);
+
+    /**
+     * Update the verification details of several players, in both the database and the player objects themselves.
+     * Every change is saved in a single transaction.
+     * @param updates the players to update, along with each one's new status and note.
+     * @return a human-readable string of text indicating the result of each update, in the same order.
+     */
+    ArrayList<String> updatePlayerVerifications(ArrayList<VerificationUpdate<IPlayer>> updates);
+
     /**
      * Updates an event in the database with new information from the API.
      * This will update associated teams and players.
@@ -101,4 +269,12 @@ public interface IDatabase {
      * @return a string describing the result (error, success message).
      */
     String fetchNewEvents();
+
+    /**
+     * Cancel any query another thread is currently running, so a result that is no longer wanted stops using the database.
+     * The cancelled query fails with an exception in its own thread. If the thread is not running a query,
+     * it will be interrupted so that its next query fails instead.
+     * @param thread the thread whose queries should be cancelled.
+     */
+    void cancelQueries(Thread thread);
 }
@@ -10,8 +10,16 @@ package edu.liberty.andrewwerner.iplverification.model;
  * @author Andrew Werner
  */
 interface IMutablePlayer extends IPlayer {
+    /**
+     * Get the verification status set for this player itself, ignoring the status of its team.
+     * Can only be used within package modal.
+     * @return the player's own verification status.
+     */
+    VerificationStatus getOwnVerificationStatus();
+
     /**
      * Update this player's verification status and note. Can only be used within package modal.
+     * May be called from any thread, see IMutableTeam.updateVerificationDetails.
      * @param status the new verification status for the player.
      * @param note the new verification notes for the player, replacing the old one.
      */
@@ -1,5 +1,7 @@
 package edu.liberty.andrewwerner.iplverification.model;
 
+import java.util.ArrayList;
+
 /**
  * Interface IMutableTeam
  * An interface only usable in package modal that adds additional
@@ -11,13 +13,39 @@ package edu.liberty.andrewwerner.iplverification.model;
  */
 interface IMutableTeam extends ITeam {
     /**
-     * Adds a player to the team's roster. Can only be used within package modal.
-     * Will convert the roster from null if it currently is null.
-     * @param player the player to add.
+     * Determines if the team's roster has been loaded, without loading it.
+     * @return true if the team has a roster.
+     */
+    boolean isRosterLoaded();
+    /**
+     * Claim loading this team's roster, so no other thread loads it at the same time.
+     * Can only be used within package modal. A successful claim must be followed by
+     * finishRosterLoad or abandonRosterLoad.
+     * @return true if the caller must now load the roster, false if it is loaded or another thread is loading it.
+     */
+    boolean claimRosterLoad();
+    /**
+     * Set the roster of a team whose loading the caller claimed, and wake threads waiting for it.
+     * Can only be used within package modal.
+     * @param roster the team's complete roster, empty if the team has no players.
+     */
+    void finishRosterLoad(ArrayList<IPlayer> roster);
+    /**
+     * Give up a claim on loading this team's roster without setting it, such as when reading it failed,
+     * so another thread can claim it. Can only be used within package modal.
+     */
+    void abandonRosterLoad();
+    /**
+     * Wait until no thread is loading this team's roster. Can only be used within package modal.
+     * @throws InterruptedException if interrupted while waiting.
      */
-    void addToRoster(IPlayer player);
+    void awaitRosterLoad() throws InterruptedException;
     /**
      * Update this team's verification status and note. Can only be used within package modal.
+     * May be called from any thread, such as the one saving the change, while the GUI reads the team.
+     * Each field is seen by other threads as soon as it is set, but a read racing the update may see the new
+     * status with the old note. Readers that need both to match, like views redisplaying the team,
+     * should read them once the future of the update that changed them has completed.
      * @param status the new verification status for the team.
      * @param note the new verification notes for the team, replacing the old one.
      */
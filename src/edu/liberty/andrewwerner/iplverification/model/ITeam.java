@@ -45,7 +45,8 @@ public interface ITeam extends IDataObject, Comparable<ITeam> {
     /**
      * Get this team's roster as an ArrayList if IPlayer objects.
      * This may also return null if the roster has not been loaded.
-     * Rosters can be loaded via a request to IDatabase.populateRosters().
+     * Rosters can be loaded via a request to IDatabase.populateRosters(), which presenters make on a background
+     * thread for the teams they are about to display, and only for those.
      * @return this team's roster or null.
      */
     ArrayList<IPlayer> getRoster();
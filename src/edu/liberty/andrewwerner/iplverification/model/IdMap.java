@@ -0,0 +1,182 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.util.Arrays;
+
+/**
+ * Class IdMap
+ * A hash map from database ids to objects, used to join rows to the events and teams already read by a query.
+ * Keys are primitive longs, either an event id or an event and team id packed together, stored in
+ * open-addressed arrays, so neither looking up nor adding an entry boxes the key or allocates a node.
+ * Keys are compared by value and entries can't be removed, only cleared all at once.
+ * A map can be given a maximum size, once full it is cleared before the next new entry is added,
+ * which bounds the memory used by maps that live as long as a stream.
+ * @param <V> the type of object stored.
+ */
+final class IdMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    // Fixed point golden ratio, spreads consecutive ids across the table
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+    private final int maxSize;
+
+    /**
+     * Creates a new, empty, IdMap with no maximum size.
+     */
+    IdMap() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new, empty, IdMap.
+     * @param maxSize the most objects to hold before clearing the map.
+     */
+    IdMap(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("IdMap maximum size must be positive.");
+        }
+
+        this.maxSize = maxSize;
+        this.allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Get the key of an event.
+     * @param eventId the event id.
+     * @return the key.
+     */
+    static long key(int eventId) {
+        return eventId & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Get the key of a team.
+     * @param eventId the team's event id.
+     * @param teamId the team id.
+     * @return the key, the two ids packed together.
+     */
+    static long key(int eventId, int teamId) {
+        return ((long) eventId << 32) | (teamId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the key of the event or team with a primary key.
+     * @param key an event key (E::), or a team key (E:T:).
+     * @return the key of the event or team.
+     */
+    static long key(IDataKey key) {
+        DataKey dataKey = DataKey.of(key);
+        if (dataKey.getIdFormat().equals("E::")) {
+            return key(dataKey.getEventIdValue());
+        }
+
+        return key(dataKey.getEventIdValue(), dataKey.getTeamIdValue());
+    }
+
+    /**
+     * Look up an object.
+     * @param key the key of the object.
+     * @return the object, or null if there isn't one for the key.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        for (int i = this.slot(key); this.values[i] != null; i = (i + 1) & this.mask) {
+            if (this.keys[i] == key) {
+                return (V) this.values[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Add an object, replacing any object already stored for the key.
+     * @param key the key of the object.
+     * @param value the object, may not be null.
+     */
+    void put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("IdMap values may not be null.");
+        }
+
+        if (this.size >= this.maxSize && this.get(key) == null) {
+            this.clear();
+        }
+
+        int i = this.slot(key);
+        while (this.values[i] != null) {
+            if (this.keys[i] == key) {
+                this.values[i] = value;
+                return;
+            }
+            i = (i + 1) & this.mask;
+        }
+
+        this.keys[i] = key;
+        this.values[i] = value;
+        // Kept at most half full, so runs of occupied slots stay short
+        if (++this.size > this.keys.length / 2) {
+            this.grow();
+        }
+    }
+
+    /**
+     * Get the number of objects stored.
+     * @return the number of objects.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Remove every object.
+     */
+    void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Get the slot a key is looked for first.
+     * @param key the key.
+     * @return the position of the slot.
+     */
+    private int slot(long key) {
+        long hash = key * SPREAD;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    /**
+     * Double the number of slots, moving every entry to its slot in the larger table.
+     */
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.allocate(oldKeys.length * 2);
+        this.size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                this.put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Replace the table with an empty one.
+     * @param capacity the number of slots, a power of two.
+     */
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+}
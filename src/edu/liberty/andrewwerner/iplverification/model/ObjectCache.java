@@ -0,0 +1,129 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class ObjectCache
+ * An identity map for data objects loaded from the database, keyed by their data key.
+ * Holding on to loaded objects means navigating back and forth between views reuses the same
+ * instances instead of re-reading and rebuilding them.
+ * The cache is bounded, once full the least recently used object is evicted.
+ * @param <V> the type of data object stored in the cache.
+ */
+final class ObjectCache<V extends IDataObject> {
+    private final String name;
+    private final int capacity;
+    private final LinkedHashMap<DataKey, V> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a new, empty, ObjectCache.
+     * @param name human-readable name of the cache, used in statistics.
+     * @param capacity maximum number of objects to hold before evicting.
+     */
+    ObjectCache(String name, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Object cache capacity must be positive.");
+        }
+
+        this.name = name;
+        this.capacity = capacity;
+        // Access ordered, so the eldest entry is always the least recently used one.
+        this.entries = new LinkedHashMap<DataKey, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DataKey, V> eldest) {
+                if (this.size() > ObjectCache.this.capacity) {
+                    ObjectCache.this.evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Look up an object in the cache.
+     * @param key the data key of the object to find.
+     * @return the cached object, or null if it is not cached.
+     */
+    synchronized V get(IDataKey key) {
+        V value = this.entries.get(DataKey.of(key));
+        if (value == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+        }
+
+        return value;
+    }
+
+    /**
+     * Add an object to the cache unless an object with the same key is already cached.
+     * Callers should use the returned object so only one instance of each row is handed out.
+     * @param value the object to cache.
+     * @return the object now in the cache for the value's key.
+     */
+    synchronized V putIfAbsent(V value) {
+        DataKey key = DataKey.of(value.getFullKey());
+        V existing = this.entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        this.entries.put(key, value);
+        return value;
+    }
+
+    /**
+     * Add an object to the cache, replacing any object already cached with the same key.
+     * @param value the object to cache.
+     */
+    synchronized void put(V value) {
+        this.entries.put(DataKey.of(value.getFullKey()), value);
+    }
+
+    /**
+     * Remove an object from the cache.
+     * @param key the data key of the object to remove.
+     */
+    synchronized void invalidate(IDataKey key) {
+        this.entries.remove(DataKey.of(key));
+    }
+
+    /**
+     * Remove an object and every object nested below it from the cache.
+     * For example, invalidating the team 1:2: also removes the players 1:2:P.
+     * @param key the primary data key of the object to remove.
+     */
+    synchronized void invalidateTree(IDataKey key) {
+        DataKey parent = DataKey.of(key);
+        if (parent.getIdFormat().equals("E:T:P")) {
+            // Players have nothing nested below them
+            this.entries.remove(parent);
+            return;
+        }
+
+        // 1:2: matches 1:2: and 1:2:*, but not 1:20:*
+        this.entries.keySet().removeIf(parent::contains);
+    }
+
+    /**
+     * Remove every object from the cache.
+     */
+    synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Take a snapshot of this cache's counters.
+     * @return the statistics for this cache.
+     */
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(this.name, this.hits, this.misses, this.evictions,
+                this.entries.size(), this.capacity);
+    }
+}
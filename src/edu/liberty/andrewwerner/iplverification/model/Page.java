@@ -0,0 +1,94 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+
+/**
+ * Class Page
+ * One page of the results of a search or listing, along with a continuation token for the next page.
+ * Tokens are opaque to callers, they hold the sort key of the last result on the page,
+ * so the next page starts directly after it without re-reading earlier results.
+ * @param <T> the type of result on the page.
+ */
+public final class Page<T> {
+    private final ArrayList<T> items;
+    private final String continuationToken;
+
+    /**
+     * Creates a new Page object. Can only be done within the model package.
+     * @param items the results on this page, in order.
+     * @param continuationToken token for the next page, or null if this is the last page.
+     */
+    Page(ArrayList<T> items, String continuationToken) {
+        this.items = items;
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Get the results on this page.
+     * @return the results on this page, in order.
+     */
+    public ArrayList<T> getItems() {
+        return this.items;
+    }
+
+    /**
+     * Get the token to pass back to the same method, with the same filters, to get the next page.
+     * @return the continuation token, or null if this is the last page.
+     */
+    public String getContinuationToken() {
+        return this.continuationToken;
+    }
+
+    /**
+     * Are there more results after this page?
+     * @return true if there is a next page.
+     */
+    public boolean hasMore() {
+        return this.continuationToken != null;
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Encode the sort key of a result as a continuation token.
+     * @param values the value of each sort column, in order.
+     * @return the continuation token.
+     */
+    static String encodeToken(Object... values) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        ArrayList<String> parts = new ArrayList<>();
+        for (Object value : values) {
+            parts.add(encoder.encodeToString(String.valueOf(value).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        return String.join(".", parts);
+    }
+
+    /**
+     * Decode a continuation token back into the sort key it was made from.
+     * @param token the continuation token.
+     * @param columns the number of sort columns the token should contain.
+     * @return the value of each sort column, in order.
+     */
+    static String[] decodeToken(String token, int columns) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != columns) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token);
+        }
+
+        try {
+            String[] values = new String[columns];
+            for (int i = 0; i < columns; i++) {
+                values[i] = new String(Base64.getUrlDecoder().decode(parts[i]), StandardCharsets.UTF_8);
+            }
+
+            return values;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+}
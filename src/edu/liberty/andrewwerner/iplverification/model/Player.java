@@ -7,14 +7,15 @@ package edu.liberty.andrewwerner.iplverification.model;
  * @author Andrew Werner
  */
 public final class Player implements IMutablePlayer {
-    private final String playerId;
-    private final IDataKey dataKey;
+    // Also holds the player's id
+    private final DataKey dataKey;
     private final String remoteId;
     private final String url;
     private final String name;
     private final ITeam team;
-    private VerificationStatus verificationStatus;
-    private String verificationNote;
+    // Changed by database threads while the GUI reads them, see IMutablePlayer.updateVerificationDetails
+    private volatile VerificationStatus verificationStatus;
+    private volatile String verificationNote;
     private final boolean dropped;
 
     /**
@@ -28,9 +29,8 @@ public final class Player implements IMutablePlayer {
      * @param verificationNote The player's verification note.
      * @param dropped Did this player drop from their team's roster after registering?
      */
-    Player(String playerId, String remoteId, String url, String name,
+    Player(int playerId, String remoteId, String url, String name,
            ITeam team, VerificationStatus verificationStatus, String verificationNote, boolean dropped) {
-        this.playerId = playerId;
         this.remoteId = remoteId;
         this.url = url;
         this.name = name;
@@ -38,12 +38,13 @@ public final class Player implements IMutablePlayer {
         this.verificationStatus = verificationStatus;
         this.verificationNote = verificationNote;
         this.dropped = dropped;
-        this.dataKey = new DataKey(this.getTeam().getEvent().getId(), this.getTeam().getId(), playerId);
+        DataKey teamKey = DataKey.of(team.getFullKey());
+        this.dataKey = DataKey.ofPlayer(teamKey.getEventIdValue(), teamKey.getTeamIdValue(), playerId);
     }
 
     @Override
     public String getId() {
-        return this.playerId;
+        return this.dataKey.getPlayerId();
     }
 
     @Override
@@ -87,6 +88,11 @@ public final class Player implements IMutablePlayer {
         return this.verificationStatus;
     }
 
+    @Override
+    public VerificationStatus getOwnVerificationStatus() {
+        return this.verificationStatus;
+    }
+
     @Override
     public String getVerificationNote() {
         return this.verificationNote;
@@ -102,9 +108,8 @@ public final class Player implements IMutablePlayer {
     public int compareTo(IPlayer otherPlayer) {
         ITeam thisTeam = this.getTeam();
         ITeam otherTeam = otherPlayer.getTeam();
-        if (!this.getId().equals(otherPlayer.getId()) &&
-            thisTeam.getId().equals(otherTeam.getId()) &&
-            thisTeam.getEvent().getId().equals(otherTeam.getEvent().getId())
+        if (!this.getFullKey().equals(otherPlayer.getFullKey()) &&
+            thisTeam.getFullKey().equals(otherTeam.getFullKey())
         ) {
             //Team & Event match, but no player match
             // Sort alphabetically
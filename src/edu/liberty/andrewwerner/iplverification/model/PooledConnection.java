@@ -0,0 +1,98 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Class PooledConnection
+ * A database connection borrowed from a ConnectionPool, along with the prepared statements cached for it.
+ * Only the thread that borrowed the connection may use it. Closing it returns it to the pool
+ * instead of closing the underlying connection, so it can be used in a try-with-resources block.
+ */
+final class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private volatile PreparedStatement current = null;
+
+    /**
+     * Creates a new PooledConnection. Can only be done by a ConnectionPool.
+     * @param pool the pool the connection is returned to when closed.
+     * @param connection the underlying database connection.
+     * @param statementCacheCapacity maximum number of prepared statements to keep open on this connection.
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheCapacity) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = new StatementCache(connection, statementCacheCapacity);
+    }
+
+    /**
+     * Get a prepared statement for an SQL string from this connection's statement cache.
+     * The returned statement must not be closed by the caller.
+     * @param sql the sql statement string.
+     * @return a prepared statement for the SQL string.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        this.current = this.statementCache.prepare(sql);
+        return this.current;
+    }
+
+    /**
+     * Ask the database to cancel the statement most recently prepared on this connection.
+     * May be called from any thread.
+     * @return true if the database accepted the request, false if there is no statement or cancelling isn't supported.
+     */
+    boolean cancel() {
+        PreparedStatement statement = this.current;
+        if (statement == null) {
+            return false;
+        }
+
+        try {
+            statement.cancel();
+            return true;
+        } catch (SQLException e) {
+            // Includes SQLFeatureNotSupportedException, thrown by the embedded Derby driver
+            return false;
+        }
+    }
+
+    /**
+     * Get the underlying database connection, for transaction control.
+     * @return the underlying connection.
+     */
+    Connection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * Get the statement cache for this connection.
+     * @return the statement cache.
+     */
+    StatementCache getStatementCache() {
+        return this.statementCache;
+    }
+
+    /**
+     * Return this connection to the pool it was borrowed from.
+     */
+    @Override
+    public void close() {
+        this.current = null;
+        this.pool.release(this);
+    }
+
+    /**
+     * Close the underlying connection and its cached statements, ignoring any errors
+     * as the connection is being discarded anyways.
+     */
+    void discard() {
+        this.statementCache.clear();
+        try {
+            this.connection.close();
+        } catch (SQLException ignored) {} // Nothing useful can be done with a connection that won't close
+    }
+}
@@ -0,0 +1,426 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class PrefixIndex
+ * An immutable in-memory index from lower-cased names to the primary keys of the rows with that name.
+ * Names are kept in sorted order alongside parallel arrays of ids, so every name starting with a prefix
+ * is found with a binary search followed by a short scan. Rows with the same name are ordered by their ids,
+ * the same (search_name, primary key) order used by paged searches of teams and players.
+ * Event searches list the newest events first, so an index of events also holds each event's start time,
+ * and orders the events matching a prefix by (start time descending, search_name, event id) when searching.
+ * This takes far less memory than a trie when millions of names are indexed, as each row only costs
+ * a reference and its ids, and rows sharing a name share one string.
+ */
+final class PrefixIndex {
+    // Approximate sizes for a 64-bit JVM with compressed references
+    private static final int REFERENCE_BYTES = 4;
+    private static final int INT_BYTES = 4;
+    private static final int LONG_BYTES = 8;
+    private static final int STRING_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final String name;
+    private final String[] names;
+    private int[] eventIds;
+    private int[] teamIds;
+    private int[] playerIds;
+    // Start time of each event as Timestamp.getTime() gives it, or null if the rows aren't events
+    private long[] startTimes;
+    private final int size;
+    private final int distinctNames;
+
+    /**
+     * Creates a new PrefixIndex from rows that should already be sorted by name, then ids.
+     * Rows are re-sorted if they are not in the order Java compares strings in, as databases may sort differently.
+     * Only the first size elements of each array are used, they are copied into arrays of exactly that size.
+     * @param name human-readable name of the index, used in statistics.
+     * @param names the lower-cased name of each row, in sorted order.
+     * @param eventIds the event id of each row.
+     * @param teamIds the team id of each row, or null if the rows are events.
+     * @param playerIds the player id of each row, or null if the rows are events or teams.
+     * @param startTimes the start time of each row as Timestamp.getTime() gives it if the rows are events,
+     *                   otherwise null.
+     * @param size the number of rows.
+     */
+    PrefixIndex(String name, String[] names, int[] eventIds, int[] teamIds, int[] playerIds, long[] startTimes,
+                int size) {
+        this.name = name;
+        this.names = Arrays.copyOf(names, size);
+        this.eventIds = Arrays.copyOf(eventIds, size);
+        this.teamIds = teamIds == null ? null : Arrays.copyOf(teamIds, size);
+        this.playerIds = playerIds == null ? null : Arrays.copyOf(playerIds, size);
+        this.startTimes = startTimes == null ? null : Arrays.copyOf(startTimes, size);
+        this.size = size;
+        names = this.names;
+
+        for (int i = 1; i < size; i++) {
+            if (this.compareRows(i - 1, i) > 0) {
+                this.sortByName();
+                break;
+            }
+        }
+
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || !names[i].equals(names[i - 1])) {
+                distinct++;
+            } else {
+                // Share the string between rows with the same name
+                names[i] = names[i - 1];
+            }
+        }
+        this.distinctNames = distinct;
+    }
+
+    /**
+     * Find the primary keys of every row with a name starting with a prefix.
+     * @param prefix the lower-cased prefix to search for, an empty prefix matches every row.
+     * @return the primary keys of matching rows, in the order of a paged search.
+     */
+    ArrayList<IDataKey> search(String prefix) {
+        return this.search(prefix, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Find the primary keys of the rows with a name starting with a prefix that come after a given row.
+     * Used to read one page of a search at a time.
+     * @param prefix the lower-cased prefix to search for, an empty prefix matches every row.
+     * @param after the sort key (the start time for events, then the name, then each id) of the last row already
+     *              read, or null to start at the first.
+     * @param limit the maximum number of keys to return.
+     * @return the primary keys of up to limit matching rows, in the order of a paged search.
+     */
+    ArrayList<IDataKey> search(String prefix, String[] after, int limit) {
+        if (this.startTimes != null) {
+            return this.searchByStartTime(prefix, after, limit);
+        }
+
+        int start = this.lowerBound(prefix);
+        if (after != null) {
+            start = Math.max(start, this.upperBound(after));
+        }
+
+        ArrayList<IDataKey> keys = new ArrayList<>();
+        for (int i = start; i < this.size && keys.size() < limit && this.names[i].startsWith(prefix); i++) {
+            if (this.teamIds == null) {
+                keys.add(DataKey.ofEvent(this.eventIds[i]));
+            } else if (this.playerIds == null) {
+                keys.add(DataKey.ofTeam(this.eventIds[i], this.teamIds[i]));
+            } else {
+                keys.add(DataKey.ofPlayer(this.eventIds[i], this.teamIds[i], this.playerIds[i]));
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Count the rows with a name starting with a prefix.
+     * @param prefix the lower-cased prefix to search for, an empty prefix matches every row.
+     * @return the number of matching rows.
+     */
+    int count(String prefix) {
+        int start = this.lowerBound(prefix);
+        return this.prefixEnd(prefix, start) - start;
+    }
+
+    /**
+     * Get the number of columns in the sort key of each row: the start time for events, the name, then each id.
+     * @return the number of sort columns.
+     */
+    int getSortColumns() {
+        return 2 + (this.teamIds == null ? 0 : 1) + (this.playerIds == null ? 0 : 1)
+            + (this.startTimes == null ? 0 : 1);
+    }
+
+    /**
+     * Estimate the memory used by this index.
+     * @return the statistics for this index.
+     */
+    PrefixIndexStatistics getStatistics() {
+        long bytes = ARRAY_HEADER_BYTES + (long) this.names.length * REFERENCE_BYTES;
+        int idColumns = 1 + (this.teamIds == null ? 0 : 1) + (this.playerIds == null ? 0 : 1);
+        bytes += idColumns * (ARRAY_HEADER_BYTES + (long) this.eventIds.length * INT_BYTES);
+        if (this.startTimes != null) {
+            bytes += ARRAY_HEADER_BYTES + (long) this.startTimes.length * LONG_BYTES;
+        }
+
+        for (int i = 0; i < this.size; i++) {
+            if (i == 0 || this.names[i] != this.names[i - 1]) {
+                // Each distinct string is an object plus its character array, padded to 8 bytes
+                bytes += STRING_BYTES + align(ARRAY_HEADER_BYTES + 2L * this.names[i].length());
+            }
+        }
+
+        return new PrefixIndexStatistics(this.name, this.size, this.distinctNames, bytes);
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Find the position of the first name that is not less than a prefix.
+     * @param prefix the prefix to search for.
+     * @return the position of the first possible match.
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.names[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Find the position after the last name starting with a prefix. Matching names are contiguous.
+     * @param prefix the prefix to search for.
+     * @param start the position of the first possible match, see lowerBound.
+     * @return the position of the first name after the matches.
+     */
+    private int prefixEnd(String prefix, int start) {
+        int low = start;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.names[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Find the keys of the events with a name starting with a prefix that come after a given event,
+     * newest first, then by name and id, the order of a paged event search.
+     * Every matching event is sorted on each call, which is cheap as there are far fewer events than teams or players.
+     * @param prefix the lower-cased prefix to search for, an empty prefix matches every event.
+     * @param after the sort key (start time, name, id) of the last event already read, or null to start at the first.
+     * @param limit the maximum number of keys to return.
+     * @return the keys of up to limit matching events.
+     */
+    private ArrayList<IDataKey> searchByStartTime(String prefix, String[] after, int limit) {
+        int start = this.lowerBound(prefix);
+        int end = this.prefixEnd(prefix, start);
+        Integer[] rows = new Integer[end - start];
+        for (int i = start; i < end; i++) {
+            rows[i - start] = i;
+        }
+        Arrays.sort(rows, this::compareByStartTime);
+
+        long afterTime = 0;
+        int afterId = 0;
+        if (after != null) {
+            if (after.length != this.getSortColumns()) {
+                throw new IllegalArgumentException("Expected a sort key with " + this.getSortColumns() + " columns.");
+            }
+            afterTime = Timestamp.valueOf(after[0]).getTime();
+            afterId = Integer.parseInt(after[2]);
+        }
+
+        ArrayList<IDataKey> keys = new ArrayList<>();
+        for (int i = 0; i < rows.length && keys.size() < limit; i++) {
+            int row = rows[i];
+            if (after != null) {
+                int result = Long.compare(afterTime, this.startTimes[row]);
+                if (result == 0) {
+                    result = this.names[row].compareTo(after[1]);
+                }
+                if (result == 0) {
+                    result = this.compareIds(row, afterId, 0, 0);
+                }
+                if (result <= 0) {
+                    continue;
+                }
+            }
+
+            keys.add(DataKey.ofEvent(this.eventIds[row]));
+        }
+
+        return keys;
+    }
+
+    /**
+     * Find the position of the first row that comes after a sort key.
+     * @param after the sort key, the name followed by each id.
+     * @return the position of the first row after the sort key.
+     */
+    private int upperBound(String[] after) {
+        if (after.length != this.getSortColumns()) {
+            throw new IllegalArgumentException("Expected a sort key with " + this.getSortColumns() + " columns.");
+        }
+
+        int[] ids = new int[3];
+        for (int i = 1; i < after.length; i++) {
+            ids[i - 1] = Integer.parseInt(after[i]);
+        }
+
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int result = this.names[middle].compareTo(after[0]);
+            if (result == 0) {
+                result = this.compareIds(middle, ids[0], ids[1], ids[2]);
+            }
+
+            if (result <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Compare two rows by name, then by ids.
+     * @param a the position of the first row.
+     * @param b the position of the second row.
+     * @return negative if row a comes first, positive if row b comes first, or 0 if they are the same.
+     */
+    private int compareRows(int a, int b) {
+        int result = this.names[a].compareTo(this.names[b]);
+        if (result != 0) {
+            return result;
+        }
+
+        return this.compareIds(a, this.eventIds[b],
+                this.teamIds == null ? 0 : this.teamIds[b],
+                this.playerIds == null ? 0 : this.playerIds[b]);
+    }
+
+    /**
+     * Compare two events, newest first, then by name and id.
+     * @param a the position of the first event.
+     * @param b the position of the second event.
+     * @return negative if event a comes first, positive if event b comes first, or 0 if they are the same.
+     */
+    private int compareByStartTime(int a, int b) {
+        int result = Long.compare(this.startTimes[b], this.startTimes[a]);
+        return result != 0 ? result : this.compareRows(a, b);
+    }
+
+    /**
+     * Compare the ids of a row to a set of ids. Ids the index does not have are ignored.
+     * @param row the position of the row.
+     * @param eventId the event id to compare to.
+     * @param teamId the team id to compare to.
+     * @param playerId the player id to compare to.
+     * @return negative if the row comes first, positive if it comes after, or 0 if the ids are the same.
+     */
+    private int compareIds(int row, int eventId, int teamId, int playerId) {
+        int result = Integer.compare(this.eventIds[row], eventId);
+        if (result == 0 && this.teamIds != null) {
+            result = Integer.compare(this.teamIds[row], teamId);
+        }
+        if (result == 0 && this.playerIds != null) {
+            result = Integer.compare(this.playerIds[row], playerId);
+        }
+
+        return result;
+    }
+
+    /**
+     * Sort the rows by name, then ids. Only needed when the rows were not provided in sorted order.
+     */
+    private void sortByName() {
+        Integer[] order = new Integer[this.size];
+        for (int i = 0; i < this.size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, this::compareRows);
+
+        String[] sortedNames = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            sortedNames[i] = this.names[order[i]];
+        }
+        System.arraycopy(sortedNames, 0, this.names, 0, this.size);
+        this.eventIds = reorder(this.eventIds, order);
+        this.teamIds = reorder(this.teamIds, order);
+        this.playerIds = reorder(this.playerIds, order);
+        if (this.startTimes != null) {
+            long[] sortedTimes = new long[this.size];
+            for (int i = 0; i < this.size; i++) {
+                sortedTimes[i] = this.startTimes[order[i]];
+            }
+            this.startTimes = sortedTimes;
+        }
+    }
+
+    /**
+     * Reorder an array of ids.
+     * @param ids the ids to reorder, may be null.
+     * @param order the original position of the id that belongs at each position.
+     * @return the reordered ids, or null if ids was null.
+     */
+    private static int[] reorder(int[] ids, Integer[] order) {
+        if (ids == null) {
+            return null;
+        }
+
+        int[] sorted = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = ids[order[i]];
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Round a size up to the JVM's 8 byte object alignment.
+     * @param bytes the unaligned size.
+     * @return the aligned size.
+     */
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Grow an array of names to hold at least a given number of elements.
+     * Used while reading rows into a new index.
+     * @param names the array to grow.
+     * @param size the number of elements needed.
+     * @return the array, or a larger copy of it.
+     */
+    static String[] ensureCapacity(String[] names, int size) {
+        return size <= names.length ? names : Arrays.copyOf(names, Math.max(size, names.length * 2));
+    }
+
+    /**
+     * Grow an array of ids to hold at least a given number of elements.
+     * Used while reading rows into a new index.
+     * @param ids the array to grow, may be null.
+     * @param size the number of elements needed.
+     * @return the array, a larger copy of it, or null if it was null.
+     */
+    static int[] ensureCapacity(int[] ids, int size) {
+        return ids == null || size <= ids.length ? ids : Arrays.copyOf(ids, Math.max(size, ids.length * 2));
+    }
+
+    /**
+     * Grow an array of start times to hold at least a given number of elements.
+     * Used while reading rows into a new index.
+     * @param times the array to grow, may be null.
+     * @param size the number of elements needed.
+     * @return the array, a larger copy of it, or null if it was null.
+     */
+    static long[] ensureCapacity(long[] times, int size) {
+        return times == null || size <= times.length ? times : Arrays.copyOf(times, Math.max(size, times.length * 2));
+    }
+}
@@ -0,0 +1,74 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+/**
+ * Class PrefixIndexStatistics
+ * An immutable description of an in-memory name index at the time it was taken.
+ * Used to judge how much memory indexing names costs.
+ */
+public final class PrefixIndexStatistics {
+    private final String name;
+    private final int entries;
+    private final int distinctNames;
+    private final long estimatedBytes;
+
+    /**
+     * Creates a new PrefixIndexStatistics object. Can only be done within the model package.
+     * @param name human-readable name of the index these statistics describe.
+     * @param entries number of rows indexed.
+     * @param distinctNames number of different names among the indexed rows.
+     * @param estimatedBytes estimated memory used by the index, in bytes.
+     */
+    PrefixIndexStatistics(String name, int entries, int distinctNames, long estimatedBytes) {
+        this.name = name;
+        this.entries = entries;
+        this.distinctNames = distinctNames;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Get the name of the index these statistics describe.
+     * @return the name of the index.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the number of rows indexed.
+     * @return the number of entries in the index.
+     */
+    public int getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Get the number of different names among the indexed rows. Rows with the same name share one string.
+     * @return the number of distinct names.
+     */
+    public int getDistinctNames() {
+        return this.distinctNames;
+    }
+
+    /**
+     * Get the estimated memory used by the index. This is an estimate based on typical JVM object layouts.
+     * @return the estimated size of the index in bytes.
+     */
+    public long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    /**
+     * Get the estimated memory used per indexed row.
+     * @return the estimated bytes per entry, or 0 if the index is empty.
+     */
+    public double getBytesPerEntry() {
+        return this.entries == 0 ? 0 : (double) this.estimatedBytes / this.entries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d entries, %d distinct names, ~%.1f MB (%.1f bytes per entry)",
+                this.name, this.entries, this.distinctNames, this.estimatedBytes / (1024.0 * 1024.0),
+                this.getBytesPerEntry());
+    }
+}
@@ -0,0 +1,257 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Class QueryCache
+ * Holds the results of recent searches and listings, keyed by the method and its normalized arguments.
+ * Navigating back to a view repeats the queries it was loaded with, the cache answers them without the database.
+ * Each result records the data keys it depends on: the objects it holds and the events or teams it was listed from.
+ * Changing an object invalidates every result depending on it, on an object nested below it, or on one of its parents,
+ * and importing new data invalidates every search, as any of them may now match more rows.
+ * Results also expire after a fixed time, in case the database is changed by something other than this program.
+ * The cache is bounded, once full the least recently used result is evicted.
+ * Callers asking for a result that is already being loaded wait for that load instead of running the same query,
+ * so a double click or a prefetch racing the user's own request only reads the result once.
+ */
+final class QueryCache {
+    private final String name;
+    private final int capacity;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<List<Object>, CachedResult> entries;
+    // Results being loaded, completed with the result once loaded or exceptionally if the load fails
+    private final HashMap<List<Object>, CompletableFuture<Object>> inFlight = new HashMap<>();
+    // Incremented by every invalidation, results loaded across one are not cached as they may already be stale
+    private long generation = 0;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private long coalesced;
+
+    /**
+     * Creates a new, empty, QueryCache.
+     * @param name human-readable name of the cache, used in statistics.
+     * @param capacity maximum number of results to hold before evicting.
+     * @param timeToLiveMillis how long a result is used before it is read from the database again.
+     */
+    QueryCache(String name, int capacity, long timeToLiveMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Query cache capacity must be positive.");
+        }
+
+        this.name = name;
+        this.capacity = capacity;
+        this.timeToLiveNanos = timeToLiveMillis * 1000000;
+        // Access ordered, so the eldest entry is always the least recently used one.
+        this.entries = new LinkedHashMap<List<Object>, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedResult> eldest) {
+                if (this.size() > QueryCache.this.capacity) {
+                    QueryCache.this.evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Build the key of a query's result.
+     * Arguments are compared with equals, so they should be normalized first, for example by trimming queries.
+     * @param method the name of the method that ran the query.
+     * @param args the arguments it was called with.
+     * @return the key.
+     */
+    static List<Object> key(String method, Object... args) {
+        ArrayList<Object> key = new ArrayList<>(args.length + 1);
+        key.add(method);
+        key.addAll(Arrays.asList(args));
+        return key;
+    }
+
+    /**
+     * Get the result of a query, loading and caching it if it isn't cached.
+     * If the result is already being loaded by another caller, waits for that load and shares its result.
+     * A failed load isn't shared, as it may only have failed because its caller was cancelled,
+     * so the callers that were waiting for it load the result again.
+     * @param key the key of the result, see key.
+     * @param search true if the result is a search, which importing new data invalidates.
+     * @param loader runs the query, called without holding the cache's lock.
+     * @param dependencies gets the primary keys of the objects the loaded result depends on.
+     * @return the result, which is shared with every caller that gets it from the cache.
+     * @param <T> the type of result.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(List<Object> key, boolean search, Supplier<T> loader,
+              Function<T, Collection<? extends IDataKey>> dependencies) {
+        CompletableFuture<Object> flight;
+        boolean leader;
+        long loadedGeneration;
+        synchronized (this) {
+            CachedResult entry = this.entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loaded < this.timeToLiveNanos) {
+                this.hits++;
+                return (T) entry.result;
+            }
+
+            if (entry != null) {
+                this.entries.remove(key);
+                this.expirations++;
+            }
+
+            flight = this.inFlight.get(key);
+            leader = flight == null;
+            if (leader) {
+                this.misses++;
+                flight = new CompletableFuture<>();
+                this.inFlight.put(key, flight);
+            } else {
+                this.coalesced++;
+            }
+            loadedGeneration = this.generation;
+        }
+
+        if (!leader) {
+            try {
+                return (T) flight.get();
+            } catch (InterruptedException e) {
+                // Cancelled while waiting, like a query that is cancelled while running
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Error while waiting for a query: ", e);
+            } catch (ExecutionException e) {
+                // The failure may have been the other caller's alone, such as it being cancelled, so try again
+                return this.get(key, search, loader, dependencies);
+            }
+        }
+
+        long loadStarted = System.nanoTime();
+        boolean loaded = false;
+        try {
+            T result = loader.get();
+            ArrayList<DataKey> keys = new ArrayList<>();
+            for (IDataKey dependency : dependencies.apply(result)) {
+                keys.add(DataKey.of(dependency));
+            }
+
+            synchronized (this) {
+                this.inFlight.remove(key, flight);
+                if (this.generation == loadedGeneration) {
+                    this.entries.put(key, new CachedResult(result, search, keys, loadStarted));
+                }
+            }
+            flight.complete(result);
+            loaded = true;
+            return result;
+        } finally {
+            if (!loaded) {
+                synchronized (this) {
+                    this.inFlight.remove(key, flight);
+                }
+                flight.completeExceptionally(new IllegalStateException("Query failed."));
+            }
+        }
+    }
+
+    /**
+     * Remove every result depending on an object, an object nested below it, or one of its parents.
+     * For example, invalidating the team 1:2: removes results holding the event 1::, the team 1:2:,
+     * or the players 1:2:P, but not results only holding the team 1:20:.
+     * @param key the primary data key of the object that changed.
+     */
+    synchronized void invalidate(IDataKey key) {
+        DataKey changed = DataKey.of(key);
+        this.startNewGeneration();
+        this.entries.values().removeIf(entry -> {
+            for (DataKey dependency : entry.dependencies) {
+                if (changed.contains(dependency) || dependency.contains(changed)) {
+                    this.invalidations++;
+                    return true;
+                }
+            }
+
+            return false;
+        });
+    }
+
+    /**
+     * Remove every search result, such as when an import may have added new names.
+     */
+    synchronized void invalidateSearches() {
+        this.startNewGeneration();
+        this.entries.values().removeIf(entry -> {
+            if (entry.search) {
+                this.invalidations++;
+            }
+
+            return entry.search;
+        });
+    }
+
+    /**
+     * Remove every result from the cache.
+     */
+    synchronized void clear() {
+        this.startNewGeneration();
+        this.entries.clear();
+    }
+
+    /**
+     * Take a snapshot of this cache's counters.
+     * @return the statistics for this cache.
+     */
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(this.name, this.hits, this.misses, this.evictions, this.expirations,
+                this.invalidations, this.coalesced, this.entries.size(), this.capacity);
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Start a new generation once the data that results are built from has changed.
+     * Loads in progress may already be stale, so they aren't cached and later callers don't wait for them.
+     */
+    private void startNewGeneration() {
+        this.generation++;
+        this.inFlight.clear();
+    }
+
+    /**
+     * Class CachedResult
+     * A cached result along with what it depends on.
+     */
+    private static final class CachedResult {
+        private final Object result;
+        private final boolean search;
+        private final ArrayList<DataKey> dependencies;
+        private final long loaded;
+
+        /**
+         * Creates a new CachedResult.
+         * @param result the result of the query.
+         * @param search true if the result is a search.
+         * @param dependencies the primary keys of the objects the result depends on.
+         * @param loaded the System.nanoTime the query was started at.
+         */
+        private CachedResult(Object result, boolean search, ArrayList<DataKey> dependencies, long loaded) {
+            this.result = result;
+            this.search = search;
+            this.dependencies = dependencies;
+            this.loaded = loaded;
+        }
+    }
+}
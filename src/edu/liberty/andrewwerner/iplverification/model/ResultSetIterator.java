@@ -0,0 +1,110 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class ResultSetIterator
+ * Iterates over the rows of an open result set, building one object per row only as each is asked for,
+ * so results of any size are processed in constant memory.
+ * The result set and the connection it was read from are released as soon as the last row has been read,
+ * or when the iterator is closed, whichever comes first.
+ * @param <T> the type of object built from each row.
+ */
+final class ResultSetIterator<T> implements Iterator<T>, AutoCloseable {
+    /**
+     * Interface RowReader
+     * Builds an object from the current row of a result set.
+     * @param <T> the type of object built.
+     */
+    @FunctionalInterface
+    interface RowReader<T> {
+        /**
+         * Build an object from the current row.
+         * @param row the mapper for the result set, positioned on the row to read.
+         * @return the object for the row.
+         * @throws SQLException if the row can't be read.
+         */
+        T read(RowMapper row) throws SQLException;
+    }
+
+    private final PooledConnection connection;
+    private final ResultSet rows;
+    private final RowMapper row;
+    private final RowReader<T> reader;
+    private boolean advanced = false;
+    private boolean hasRow = false;
+    private boolean closed = false;
+
+    /**
+     * Creates a new ResultSetIterator.
+     * @param connection the borrowed connection the result set was read from, returned to its pool once done.
+     * @param rows the result set, positioned before its first row.
+     * @param row the mapper for the result set, passed to the reader.
+     * @param reader builds the object for each row.
+     */
+    ResultSetIterator(PooledConnection connection, ResultSet rows, RowMapper row, RowReader<T> reader) {
+        this.connection = connection;
+        this.rows = rows;
+        this.row = row;
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.closed) {
+            return false;
+        }
+
+        if (!this.advanced) {
+            try {
+                this.hasRow = this.rows.next();
+            } catch (SQLException e) {
+                this.close();
+                throw new RuntimeException("Error while reading rows: ", e);
+            }
+            this.advanced = true;
+
+            if (!this.hasRow) {
+                // Every row has been read, don't hold on to the connection until the caller closes the iterator
+                this.close();
+            }
+        }
+
+        return this.hasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        this.advanced = false;
+        try {
+            return this.reader.read(this.row);
+        } catch (SQLException e) {
+            this.close();
+            throw new RuntimeException("Error while reading rows: ", e);
+        }
+    }
+
+    /**
+     * Close the result set and return the connection to its pool. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.hasRow = false;
+        try {
+            this.rows.close();
+        } catch (SQLException ignored) {} // The connection is returned either way
+        this.connection.close();
+    }
+}
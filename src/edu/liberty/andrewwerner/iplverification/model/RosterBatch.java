@@ -0,0 +1,110 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.BiFunction;
+
+/**
+ * Class RosterBatch
+ * Loads the rosters of a group of teams for IDatabase.populateRosters, reading them in a single query.
+ * Rosters are only loaded when asked for, presenters ask for the teams they are about to display.
+ */
+final class RosterBatch {
+    /**
+     * Load the rosters of the teams that don't have one yet. Safe to call from several threads with the same teams.
+     * Teams are claimed before their rosters are read, so each roster is read by one caller only.
+     * Callers wait for teams claimed by others, and claim them again if the other caller gave up, such as when it
+     * was cancelled. Each roster is built in full before it is set, so no thread sees part of one.
+     * @param teams the teams to load rosters for. Several instances of the same team each get their own roster.
+     * @param loader reads the players of the teams with the given keys, in roster order, attaching each player to
+     *               the given instance of its team.
+     */
+    static void loadRosters(Collection<? extends ITeam> teams,
+                            BiFunction<ArrayList<IDataKey>, IdMap<ITeam>, Collection<IPlayer>> loader) {
+        ArrayList<IMutableTeam> remaining = new ArrayList<>();
+        for (ITeam team : teams) {
+            // Safe cast, all ITeam instances are also IMutableTeam instances
+            remaining.add((IMutableTeam) team);
+        }
+
+        while (!remaining.isEmpty()) {
+            IdMap<ITeam> claimed = new IdMap<>();
+            ArrayList<IDataKey> keys = new ArrayList<>();
+            ArrayList<IMutableTeam> others = new ArrayList<>();
+            for (IMutableTeam team : remaining) {
+                long key = IdMap.key(team.getFullKey());
+                if (team.isRosterLoaded()) {
+                    continue;
+                }
+
+                if (claimed.get(key) == null && team.claimRosterLoad()) {
+                    claimed.put(key, team);
+                    keys.add(team.getFullKey());
+                } else {
+                    // Being loaded by another caller, or another instance of the same team is loaded first
+                    others.add(team);
+                }
+            }
+
+            if (!keys.isEmpty()) {
+                load(keys, claimed, loader);
+            }
+
+            for (IMutableTeam team : others) {
+                try {
+                    team.awaitRosterLoad();
+                } catch (InterruptedException e) {
+                    // Cancelled while waiting, like a query that is cancelled while running
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Error while waiting for a roster: ", e);
+                }
+            }
+            remaining = others;
+        }
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Read the rosters of claimed teams and set each one, or give up the claims if they can't be read.
+     * @param keys the key of each claimed team.
+     * @param claimed the claimed teams, by key.
+     * @param loader reads the players of the teams, see loadRosters.
+     */
+    private static void load(ArrayList<IDataKey> keys, IdMap<ITeam> claimed,
+                             BiFunction<ArrayList<IDataKey>, IdMap<ITeam>, Collection<IPlayer>> loader) {
+        IdMap<ArrayList<IPlayer>> rosters = new IdMap<>();
+        boolean loaded = false;
+        try {
+            for (IPlayer player : loader.apply(keys, claimed)) {
+                long key = IdMap.key(player.getTeam().getFullKey());
+                if (claimed.get(key) == null) {
+                    // Should never happen
+                    throw new IllegalStateException("Player loaded for a team that was not requested");
+                }
+
+                ArrayList<IPlayer> roster = rosters.get(key);
+                if (roster == null) {
+                    roster = new ArrayList<>();
+                    rosters.put(key, roster);
+                }
+                roster.add(player);
+            }
+            loaded = true;
+        } finally {
+            for (IDataKey key : keys) {
+                // Safe cast, all ITeam instances are also IMutableTeam instances
+                IMutableTeam team = (IMutableTeam) claimed.get(IdMap.key(key));
+                if (loaded) {
+                    // Teams without players get an empty roster, so they aren't loaded again
+                    ArrayList<IPlayer> roster = rosters.get(IdMap.key(key));
+                    team.finishRosterLoad(roster != null ? roster : new ArrayList<>());
+                } else {
+                    team.abandonRosterLoad();
+                }
+            }
+        }
+    }
+}
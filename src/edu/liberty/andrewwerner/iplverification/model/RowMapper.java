@@ -0,0 +1,232 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Class RowMapper
+ * Reads events, teams, and players from the rows of a result set containing EVENT_COLUMNS, and optionally
+ * TEAM_COLUMNS and PLAYER_COLUMNS, as selected by Database's queries.
+ * The position of each column is looked up once when the mapper is created rather than by name on every row,
+ * and which column groups are present is decided then too, so reading a group that is missing fails straight away.
+ */
+final class RowMapper {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private final ResultSet rows;
+    // Positions of each column, 0 when the result set doesn't have it
+    private final int eventId;
+    private final int eventRemoteId;
+    private final int eventUrl;
+    private final int eventName;
+    private final int startDate;
+    private final int teamCount;
+    private final int teamId;
+    private final int teamRemoteId;
+    private final int teamUrl;
+    private final int teamName;
+    private final int regOrder;
+    private final int teamDropped;
+    private final int teamVerificationStatus;
+    private final int teamVerificationNote;
+    private final int playerId;
+    private final int playerRemoteId;
+    private final int playerUrl;
+    private final int playerName;
+    private final int playerDropped;
+    private final int playerVerificationStatus;
+    private final int playerVerificationNote;
+
+    /**
+     * Creates a new RowMapper, looking up the position of each column.
+     * @param rows the result set to read from.
+     * @throws SQLException if the result set's columns can't be read.
+     * @throws IllegalArgumentException if the result set doesn't have the event columns.
+     */
+    RowMapper(ResultSet rows) throws SQLException {
+        this.rows = rows;
+
+        ResultSetMetaData metaData = rows.getMetaData();
+        HashMap<String, Integer> columns = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            // Labels are the alias if one was given, the first of any repeated label wins like findColumn
+            columns.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        this.eventId = columns.getOrDefault("event_id", 0);
+        this.eventRemoteId = columns.getOrDefault("event_remote_id", 0);
+        this.eventUrl = columns.getOrDefault("event_url", 0);
+        this.eventName = columns.getOrDefault("event_name", 0);
+        this.startDate = columns.getOrDefault("startdate", 0);
+        this.teamCount = columns.getOrDefault("teamcount", 0);
+        this.teamId = columns.getOrDefault("team_id", 0);
+        this.teamRemoteId = columns.getOrDefault("team_remote_id", 0);
+        this.teamUrl = columns.getOrDefault("team_url", 0);
+        this.teamName = columns.getOrDefault("team_name", 0);
+        this.regOrder = columns.getOrDefault("reg_order", 0);
+        this.teamDropped = columns.getOrDefault("team_dropped", 0);
+        this.teamVerificationStatus = columns.getOrDefault("team_verification_status", 0);
+        this.teamVerificationNote = columns.getOrDefault("team_verification_note", 0);
+        this.playerId = columns.getOrDefault("player_id", 0);
+        this.playerRemoteId = columns.getOrDefault("player_remote_id", 0);
+        this.playerUrl = columns.getOrDefault("player_url", 0);
+        this.playerName = columns.getOrDefault("player_name", 0);
+        this.playerDropped = columns.getOrDefault("player_dropped", 0);
+        this.playerVerificationStatus = columns.getOrDefault("player_verification_status", 0);
+        this.playerVerificationNote = columns.getOrDefault("player_verification_note", 0);
+
+        if (this.eventId == 0) {
+            throw new IllegalArgumentException("Result set has no event_id column.");
+        }
+    }
+
+    /**
+     * Determines if the result set has the team columns.
+     * @return true if teams can be read from the rows.
+     */
+    boolean hasTeams() {
+        return this.teamId != 0;
+    }
+
+    /**
+     * Determines if the result set has the player columns.
+     * @return true if players can be read from the rows.
+     */
+    boolean hasPlayers() {
+        return this.teamId != 0 && this.playerId != 0;
+    }
+
+    /**
+     * Read the event id of the current row.
+     * @return the event id.
+     * @throws SQLException if the row can't be read.
+     */
+    int readEventId() throws SQLException {
+        return this.rows.getInt(this.eventId);
+    }
+
+    /**
+     * Read the team id of the current row.
+     * @return the team id.
+     * @throws SQLException if the row can't be read.
+     */
+    int readTeamId() throws SQLException {
+        this.requireTeams();
+        return this.rows.getInt(this.teamId);
+    }
+
+    /**
+     * Read the player id of the current row.
+     * @return the player id.
+     * @throws SQLException if the row can't be read.
+     */
+    int readPlayerId() throws SQLException {
+        this.requirePlayers();
+        return this.rows.getInt(this.playerId);
+    }
+
+    /**
+     * Read the primary key of the team in the current row.
+     * @return the E:T: key.
+     * @throws SQLException if the row can't be read.
+     */
+    DataKey readTeamKey() throws SQLException {
+        return DataKey.ofTeam(this.readEventId(), this.readTeamId());
+    }
+
+    /**
+     * Read the primary key of the roster entry in the current row.
+     * @return the E:T:P key.
+     * @throws SQLException if the row can't be read.
+     */
+    DataKey readPlayerKey() throws SQLException {
+        return DataKey.ofPlayer(this.readEventId(), this.readTeamId(), this.readPlayerId());
+    }
+
+    /**
+     * Build a new event from the current row.
+     * @return the event.
+     * @throws SQLException if the row can't be read.
+     */
+    Event readEvent() throws SQLException {
+        return new Event(
+            this.readEventId(),
+            this.rows.getString(this.eventRemoteId),
+            this.rows.getString(this.eventName),
+            this.rows.getString(this.eventUrl),
+            // Times stored in the DB are in UTC, LocalDateTime is timezone-less.
+            // Mark it as UTC so it converts properly later.
+            this.rows.getTimestamp(this.startDate).toLocalDateTime().atZone(UTC),
+            this.rows.getInt(this.teamCount)
+        );
+    }
+
+    /**
+     * Build a new team from the current row.
+     * @param event the team's event.
+     * @return the team.
+     * @throws SQLException if the row can't be read.
+     */
+    Team readTeam(IEvent event) throws SQLException {
+        this.requireTeams();
+        return new Team(
+            this.rows.getInt(this.teamId),
+            this.rows.getString(this.teamRemoteId),
+            this.rows.getString(this.teamName),
+            this.rows.getString(this.teamUrl),
+            this.rows.getInt(this.regOrder),
+            this.rows.getInt(this.teamDropped) != 0,
+            event,
+            VerificationStatus.idToStatus(this.rows.getInt(this.teamVerificationStatus)),
+            this.rows.getString(this.teamVerificationNote)
+        );
+    }
+
+    /**
+     * Build a new player from the current row.
+     * @param team the team the player is on.
+     * @return the player.
+     * @throws SQLException if the row can't be read.
+     */
+    Player readPlayer(ITeam team) throws SQLException {
+        this.requirePlayers();
+        return new Player(
+            this.rows.getInt(this.playerId),
+            this.rows.getString(this.playerRemoteId),
+            this.rows.getString(this.playerUrl),
+            this.rows.getString(this.playerName),
+            team,
+            VerificationStatus.idToStatus(this.rows.getInt(this.playerVerificationStatus)),
+            this.rows.getString(this.playerVerificationNote),
+            this.rows.getInt(this.playerDropped) != 0
+        );
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Check that the result set has the team columns.
+     * @throws IllegalStateException if it doesn't.
+     */
+    private void requireTeams() {
+        if (!this.hasTeams()) {
+            throw new IllegalStateException("Result set has no team columns.");
+        }
+    }
+
+    /**
+     * Check that the result set has the player columns.
+     * @throws IllegalStateException if it doesn't.
+     */
+    private void requirePlayers() {
+        if (!this.hasPlayers()) {
+            throw new IllegalStateException("Result set has no player columns.");
+        }
+    }
+}
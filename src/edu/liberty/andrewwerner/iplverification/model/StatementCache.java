@@ -0,0 +1,100 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class StatementCache
+ * Keeps prepared statements open for reuse, keyed by their SQL text.
+ * Derby compiles a query plan every time a statement is prepared, which is often more expensive
+ * than running the query itself, so statements are only compiled the first time their SQL is seen.
+ * The cache is bounded, once full the least recently used statement is closed and evicted.
+ * Statements handed out by this cache must not be closed by the caller.
+ */
+final class StatementCache {
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private long hits;
+    private long compiles;
+    private long evictions;
+
+    /**
+     * Creates a new, empty, StatementCache.
+     * @param connection the connection to prepare statements on.
+     * @param capacity maximum number of statements to keep open before evicting.
+     */
+    StatementCache(Connection connection, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Statement cache capacity must be positive.");
+        }
+
+        this.connection = connection;
+        this.capacity = capacity;
+        // Access ordered, so the eldest entry is always the least recently used one.
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (this.size() > StatementCache.this.capacity) {
+                    StatementCache.this.evictions++;
+                    StatementCache.close(eldest.getValue());
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a prepared statement for an SQL string, compiling it only if it is not already cached.
+     * Any parameters left over from the statement's last use are cleared.
+     * @param sql the sql statement string.
+     * @return a prepared statement for the SQL string.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = this.statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            this.hits++;
+            statement.clearParameters();
+            return statement;
+        }
+
+        this.compiles++;
+        statement = this.connection.prepareStatement(sql);
+        this.statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Close every cached statement and empty the cache.
+     */
+    synchronized void clear() {
+        this.statements.values().forEach(StatementCache::close);
+        this.statements.clear();
+    }
+
+    /**
+     * Take a snapshot of this cache's counters.
+     * Hits are statements reused from the cache, misses are statements that had to be compiled.
+     * @return the statistics for this cache.
+     */
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics("statements", this.hits, this.compiles, this.evictions,
+                this.statements.size(), this.capacity);
+    }
+
+    /**
+     * Close a statement, ignoring any errors as the statement is being discarded anyways.
+     * @param statement the statement to close.
+     */
+    private static void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {} // Nothing useful can be done with a statement that won't close
+    }
+}
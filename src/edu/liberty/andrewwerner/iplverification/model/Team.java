@@ -9,17 +9,21 @@ import java.util.ArrayList;
  * @author Andrew Werner
  */
 public final class Team implements IMutableTeam {
-    private final String teamId;
     private final String remoteId;
     private final String name;
     private final String url;
     private final int regOrder;
     private final boolean dropped;
     private final IEvent event;
-    private VerificationStatus verificationStatus;
-    private String verificationNote;
-    private final IDataKey dataKey;
-    private ArrayList<IPlayer> roster;
+    // Changed by database threads while the GUI reads them, see IMutableTeam.updateVerificationDetails
+    private volatile VerificationStatus verificationStatus;
+    private volatile String verificationNote;
+    // Also holds the team's id
+    private final DataKey dataKey;
+    // Set once in full, so other threads never see part of a roster
+    private volatile ArrayList<IPlayer> roster;
+    // True while a thread has claimed loading the roster. Guarded by this object's monitor.
+    private boolean rosterLoading = false;
 
     /**
      * Creates a new Team object. Can only be done within the model package.
@@ -32,9 +36,8 @@ public final class Team implements IMutableTeam {
      * @param verificationStatus The team's verification status.
      * @param verificationNote The team's verification note.
      */
-    Team(String teamId, String remoteId, String name, String url, int regOrder, boolean dropped,
+    Team(int teamId, String remoteId, String name, String url, int regOrder, boolean dropped,
          IEvent event, VerificationStatus verificationStatus, String verificationNote) {
-        this.teamId = teamId;
         this.remoteId = remoteId;
         this.name = name;
         this.url = url;
@@ -43,13 +46,13 @@ public final class Team implements IMutableTeam {
         this.event = event;
         this.verificationStatus = verificationStatus;
         this.verificationNote = verificationNote;
-        this.dataKey = new DataKey(this.getEvent().getId(), teamId, null);
+        this.dataKey = DataKey.ofTeam(DataKey.of(event.getFullKey()).getEventIdValue(), teamId);
         this.roster = null;
     }
 
     @Override
     public String getId() {
-        return this.teamId;
+        return this.dataKey.getTeamId();
     }
 
     @Override
@@ -103,12 +106,38 @@ public final class Team implements IMutableTeam {
     }
 
     @Override
-    public void addToRoster(IPlayer player) {
-        if (this.roster == null) {
-            this.roster = new ArrayList<>();
+    public boolean isRosterLoaded() {
+        return this.roster != null;
+    }
+
+    @Override
+    public synchronized boolean claimRosterLoad() {
+        if (this.roster != null || this.rosterLoading) {
+            return false;
         }
 
-        this.roster.add(player);
+        this.rosterLoading = true;
+        return true;
+    }
+
+    @Override
+    public synchronized void finishRosterLoad(ArrayList<IPlayer> roster) {
+        this.roster = roster;
+        this.rosterLoading = false;
+        this.notifyAll();
+    }
+
+    @Override
+    public synchronized void abandonRosterLoad() {
+        this.rosterLoading = false;
+        this.notifyAll();
+    }
+
+    @Override
+    public synchronized void awaitRosterLoad() throws InterruptedException {
+        while (this.rosterLoading) {
+            this.wait();
+        }
     }
 
     @Override
@@ -121,7 +150,7 @@ public final class Team implements IMutableTeam {
     public int compareTo(ITeam otherTeam) {
         IEvent thisEvent = this.getEvent();
         IEvent otherEvent = otherTeam.getEvent();
-        if (!thisEvent.getId().equals(otherEvent.getId())) {
+        if (!thisEvent.getFullKey().equals(otherEvent.getFullKey())) {
             // Event compare
             return thisEvent.compareTo(otherEvent);
         }
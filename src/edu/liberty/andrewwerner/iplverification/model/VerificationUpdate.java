@@ -0,0 +1,49 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+/**
+ * Class VerificationUpdate
+ * A requested change to the verification details of a single team or player,
+ * used to apply many changes at once.
+ * @param <T> the type of object being updated, ITeam or IPlayer.
+ */
+public final class VerificationUpdate<T extends IDataObject> {
+    private final T target;
+    private final VerificationStatus status;
+    private final String note;
+
+    /**
+     * Creates a new VerificationUpdate object.
+     * @param target the team or player to update.
+     * @param status new verification status.
+     * @param note new verification note.
+     */
+    public VerificationUpdate(T target, VerificationStatus status, String note) {
+        this.target = target;
+        this.status = status;
+        this.note = note;
+    }
+
+    /**
+     * Get the team or player to update.
+     * @return the object to update.
+     */
+    public T getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Get the new verification status.
+     * @return the new verification status.
+     */
+    public VerificationStatus getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Get the new verification note.
+     * @return the new verification note.
+     */
+    public String getNote() {
+        return this.note;
+    }
+}
@@ -0,0 +1,337 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Class VerificationWriteBehind
+ * Saves verification changes in the background instead of making the caller wait for the database.
+ * Each change is applied to the team or player object as soon as it is queued, so the application shows
+ * it straight away, and is written to the database by a single writer thread shortly after.
+ * Changes queued while the writer waits are written together in one batch, and a team or player changed
+ * several times is only written once, with its latest details.
+ * Changes reach the database in the order they were queued: the writer writes one batch at a time, and
+ * writes made through runAfterPending only start once everything queued before them has been written.
+ * If a change can't be written, the object is returned to the details it had before it was queued,
+ * and the future returned when it was queued says so.
+ * Restoring a failed change, or reapplying a newer change once an older one is saved, happens on the writer
+ * thread. Teams and players publish their verification details to other threads as they are set,
+ * and each future completes only after its object has its final details, so callers redisplay it from there.
+ * Objects read from the database before a change is written still show the old details.
+ * Queued changes are only kept in memory. close writes them, but if the program exits abnormally, for
+ * example if it is killed or the machine loses power, changes that haven't been written yet are lost.
+ */
+final class VerificationWriteBehind implements AutoCloseable {
+    private static final String SAVED = "Changes saved!";
+    private static final String FAILED = "An error occurred, changes not saved.";
+
+    private final IDatabase database;
+    private final long delayMillis;
+    private final Thread writer;
+    // Pending changes by the key of the object changed, in the order they were first queued.
+    // Guarded by this object's monitor.
+    private LinkedHashMap<IDataKey, PendingChange<ITeam>> pendingTeams = new LinkedHashMap<>();
+    private LinkedHashMap<IDataKey, PendingChange<IPlayer>> pendingPlayers = new LinkedHashMap<>();
+    private boolean closed = false;
+    // Held while writing to the database, so writes happen one at a time and in order
+    private final Object writeLock = new Object();
+
+    /**
+     * Creates a new VerificationWriteBehind and starts its writer thread.
+     * @param database the database to write changes to.
+     * @param delayMillis how long the writer waits after a change is queued before writing,
+     *                    so that changes made close together are written in one batch.
+     */
+    VerificationWriteBehind(IDatabase database, long delayMillis) {
+        this.database = database;
+        this.delayMillis = delayMillis;
+        this.writer = new Thread(this::run, "verification-writer");
+        // Don't keep the program running once the window is closed, close() writes anything left
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Apply new verification details to a team now and queue them to be written to the database.
+     * Must be called from the thread that displays the team, as the team object is changed immediately.
+     * @param team the team to update.
+     * @param status new verification status.
+     * @param note new verification note.
+     * @return a future completing with a human-readable string of text indicating the result once written.
+     */
+    CompletableFuture<String> updateTeamVerification(ITeam team, VerificationStatus status, String note) {
+        synchronized (this) {
+            if (this.closed) {
+                return CompletableFuture.completedFuture(FAILED);
+            }
+
+            PendingChange<ITeam> change = this.queue(this.pendingTeams, team, team.getVerificationStatus(),
+                team.getVerificationNote(), status, note);
+            this.notifyAll();
+            return change.result;
+        }
+    }
+
+    /**
+     * Apply new verification details to a player now and queue them to be written to the database.
+     * Must be called from the thread that displays the player, as the player object is changed immediately.
+     * @param player the player to update.
+     * @param status new verification status.
+     * @param note new verification note.
+     * @return a future completing with a human-readable string of text indicating the result once written.
+     */
+    CompletableFuture<String> updatePlayerVerification(IPlayer player, VerificationStatus status, String note) {
+        synchronized (this) {
+            if (this.closed) {
+                return CompletableFuture.completedFuture(FAILED);
+            }
+
+            // The player's own status, not the one inherited from its team, is what gets restored on failure.
+            // Safe cast, all IPlayers are IMutablePlayers
+            PendingChange<IPlayer> change = this.queue(this.pendingPlayers, player,
+                ((IMutablePlayer) player).getOwnVerificationStatus(), player.getVerificationNote(), status, note);
+            this.notifyAll();
+            return change.result;
+        }
+    }
+
+    /**
+     * Write every queued change now, without waiting for the writer thread.
+     * Returns once everything queued before the call has been written.
+     */
+    void flush() {
+        this.runAfterPending(() -> null);
+    }
+
+    /**
+     * Write every queued change, then run a task that writes to the database directly,
+     * so the task's changes can't be overwritten by older queued changes.
+     * @param task the task to run.
+     * @return the task's result.
+     * @param <T> the type of the task's result.
+     */
+    <T> T runAfterPending(Supplier<T> task) {
+        synchronized (this.writeLock) {
+            this.writePending();
+            return task.get();
+        }
+    }
+
+    /**
+     * Write every queued change and stop the writer thread. Changes queued afterwards are not saved.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+            this.notifyAll();
+        }
+
+        this.flush();
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Add a change to a pending map, merging it with any change already queued for the same object,
+     * and apply it to the object.
+     * Must be called while holding this object's monitor.
+     * @param pending the pending changes for the type of object changed.
+     * @param target the object changed.
+     * @param oldStatus the object's verification status before the change.
+     * @param oldNote the object's verification note before the change.
+     * @param status new verification status.
+     * @param note new verification note.
+     * @return the pending change for the object.
+     * @param <T> the type of object changed.
+     */
+    private <T extends IDataObject> PendingChange<T> queue(LinkedHashMap<IDataKey, PendingChange<T>> pending, T target,
+                                                           VerificationStatus oldStatus, String oldNote,
+                                                           VerificationStatus status, String note) {
+        PendingChange<T> change = pending.get(target.getFullKey());
+        if (change == null) {
+            change = new PendingChange<>(oldStatus, oldNote);
+            pending.put(target.getFullKey(), change);
+        }
+
+        change.update(target, status, note);
+        return change;
+    }
+
+    /**
+     * Body of the writer thread. Waits for changes to be queued, gives others a moment to join them,
+     * then writes them all.
+     */
+    private void run() {
+        while (true) {
+            synchronized (this) {
+                while (!this.closed && this.pendingTeams.isEmpty() && this.pendingPlayers.isEmpty()) {
+                    try {
+                        this.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (this.closed) {
+                    // close() writes whatever is left
+                    return;
+                }
+            }
+
+            try {
+                Thread.sleep(this.delayMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            this.flush();
+        }
+    }
+
+    /**
+     * Write every queued change. Must be called while holding the write lock.
+     */
+    private void writePending() {
+        LinkedHashMap<IDataKey, PendingChange<ITeam>> teams;
+        LinkedHashMap<IDataKey, PendingChange<IPlayer>> players;
+        synchronized (this) {
+            teams = this.pendingTeams;
+            players = this.pendingPlayers;
+            this.pendingTeams = new LinkedHashMap<>();
+            this.pendingPlayers = new LinkedHashMap<>();
+        }
+
+        this.write(teams, () -> this.pendingTeams, this.database::updateTeamVerifications);
+        this.write(players, () -> this.pendingPlayers, this.database::updatePlayerVerifications);
+    }
+
+    /**
+     * Write a batch of changes to one type of object, then report the result of each change.
+     * @param batch the changes to write.
+     * @param pending gets the changes queued since the batch was taken.
+     * @param write writes the changes to the database, returning the result of each.
+     * @param <T> the type of object changed.
+     */
+    private <T extends IDataObject> void write(LinkedHashMap<IDataKey, PendingChange<T>> batch,
+                                               Supplier<LinkedHashMap<IDataKey, PendingChange<T>>> pending,
+                                               Function<ArrayList<VerificationUpdate<T>>, ArrayList<String>> write) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        ArrayList<VerificationUpdate<T>> updates = new ArrayList<>();
+        for (PendingChange<T> change : batch.values()) {
+            updates.add(new VerificationUpdate<>(change.targets.get(0), change.status, change.note));
+        }
+
+        ArrayList<String> results;
+        try {
+            results = write.apply(updates);
+        } catch (RuntimeException e) {
+            results = new ArrayList<>(Collections.nCopies(updates.size(), FAILED));
+        }
+
+        int i = 0;
+        for (Map.Entry<IDataKey, PendingChange<T>> entry : batch.entrySet()) {
+            PendingChange<T> change = entry.getValue();
+            String result = results.get(i++);
+            synchronized (this) {
+                PendingChange<T> newer = pending.get().get(entry.getKey());
+                if (SAVED.equals(result)) {
+                    if (newer != null) {
+                        // Saving applied this batch's details to the object again, restore the newer ones
+                        newer.reapply();
+                    }
+                } else if (newer != null) {
+                    // The database still has the details from before this change, which the newer change
+                    // must return to if it fails too
+                    newer.oldStatus = change.oldStatus;
+                    newer.oldNote = change.oldNote;
+                } else {
+                    change.rollBack();
+                }
+            }
+
+            change.result.complete(result);
+        }
+    }
+
+    /**
+     * Class PendingChange
+     * The latest verification details queued for one team or player, along with the details to restore
+     * if they can't be saved.
+     * @param <T> the type of object changed.
+     */
+    private static final class PendingChange<T extends IDataObject> {
+        // Every instance of the object the change was applied to, the same row may be loaded more than once
+        private final ArrayList<T> targets = new ArrayList<>();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private VerificationStatus oldStatus;
+        private String oldNote;
+        private VerificationStatus status;
+        private String note;
+
+        /**
+         * Creates a new PendingChange.
+         * @param oldStatus the object's verification status before it was changed.
+         * @param oldNote the object's verification note before it was changed.
+         */
+        private PendingChange(VerificationStatus oldStatus, String oldNote) {
+            this.oldStatus = oldStatus;
+            this.oldNote = oldNote;
+        }
+
+        /**
+         * Replace the details to save with newer ones.
+         * @param target the instance of the object the newer details were applied to.
+         * @param status new verification status.
+         * @param note new verification note.
+         */
+        private void update(T target, VerificationStatus status, String note) {
+            if (this.targets.stream().noneMatch(t -> t == target)) {
+                this.targets.add(target);
+            }
+            this.status = status;
+            this.note = note;
+            this.reapply();
+        }
+
+        /**
+         * Apply the details to save to every instance of the object.
+         */
+        private void reapply() {
+            this.apply(this.status, this.note);
+        }
+
+        /**
+         * Return every instance of the object to the details it had before it was changed.
+         */
+        private void rollBack() {
+            this.apply(this.oldStatus, this.oldNote);
+        }
+
+        /**
+         * Apply verification details to every instance of the object.
+         * @param status the verification status to apply.
+         * @param note the verification note to apply.
+         */
+        private void apply(VerificationStatus status, String note) {
+            for (T target : this.targets) {
+                // Safe casts, all ITeams are IMutableTeams and all IPlayers are IMutablePlayers
+                if (target instanceof IMutableTeam) {
+                    ((IMutableTeam) target).updateVerificationDetails(status, note);
+                } else {
+                    ((IMutablePlayer) target).updateVerificationDetails(status, note);
+                }
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import edu.liberty.andrewwerner.iplverification.model.*;
 import edu.liberty.andrewwerner.iplverification.view.*;
 
 import javax.swing.*;
+import java.util.Arrays;
 
 /**
  * Class Driver
@@ -12,14 +13,45 @@ import javax.swing.*;
  * @author Andrew Werner
  */
 public final class Driver {
+    // How long verification changes wait to be batched with others when written in the background
+    private static final long WRITE_BEHIND_DELAY_MILLIS = 250;
+
     /**
      * Set the program up and displays the window to the user.
-     * @param args unused command line arguments.
+     * @param args command line arguments. Passing --name-index keeps event, team, and player names
+     *             in memory for faster searches, at the cost of memory. Passing --write-behind saves
+     *             team and player verification changes in the background instead of waiting for each one.
+     *             Changes not yet written are lost if the program exits abnormally.
+     *             Passing --rebuild-participation or --check-participation rebuilds the participation table
+     *             or checks it against the rosters, printing the result instead of displaying the window.
+     *             Passing --statistics prints the hit rates of the database's caches and the size of its name
+     *             indexes when the program exits, to help size them.
      */
     public static void main(String[] args) {
         try {
             // Model
-            IDatabase db = new Database(new APIConnectorStub());
+            Database db = new Database(new APIConnectorStub());
+            if (Arrays.asList(args).contains("--rebuild-participation")
+                    || Arrays.asList(args).contains("--check-participation")) {
+                runMaintenance(db, args);
+                return;
+            }
+            if (Arrays.asList(args).contains("--name-index")) {
+                db.enableNameIndex();
+            }
+            AsyncDatabase asyncDb = new AsyncDatabase(db, 4);
+            if (Arrays.asList(args).contains("--write-behind")) {
+                asyncDb.enableWriteBehind(WRITE_BEHIND_DELAY_MILLIS);
+            }
+            boolean statistics = Arrays.asList(args).contains("--statistics");
+            // Write any unsaved changes and release the database connections when the window is closed
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                asyncDb.close();
+                if (statistics) {
+                    printStatistics(db);
+                }
+                db.close();
+            }));
 
             // View
             IWidgetFactory factory = new WidgetFactory();
@@ -29,14 +61,14 @@ public final class Driver {
             IPlayerView playerView = new PlayerView(factory);
 
             // Presenter
-            IWindow window = new Window();
-            window.registerPresenter(new SearchPresenter(db, searchView));
-            window.registerPresenter(new EventPresenter(db, eventView));
-            window.registerPresenter(new TeamPresenter(db, teamView));
-            window.registerPresenter(new PlayerPresenter(db, playerView));
-
-            // Display window to user
-            window.displayView(IPresenter.PID.Search);
+            IWindow window = new Window(db);
+            window.registerPresenter(new SearchPresenter(db, asyncDb, searchView));
+            window.registerPresenter(new EventPresenter(db, asyncDb, eventView));
+            window.registerPresenter(new TeamPresenter(db, asyncDb, teamView));
+            window.registerPresenter(new PlayerPresenter(db, asyncDb, playerView));
+
+            // Display window to user, Swing components may only be touched on the event dispatch thread
+            SwingUtilities.invokeAndWait(() -> window.displayView(IPresenter.PID.Search));
         } catch (Exception e) {
             // Display startup error to user.
             String message = String.format("An error occurred during startup:%n%n%s%n%n%s", e, e.getCause());
@@ -45,4 +77,34 @@ public final class Driver {
                 "IPL Verification System", JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    /**
+     * Run the database maintenance tasks requested on the command line, printing their results.
+     * @param db the database to maintain, closed once done.
+     * @param args command line arguments.
+     */
+    private static void runMaintenance(Database db, String[] args) {
+        try {
+            // A rebuild is checked afterwards if both are asked for
+            if (Arrays.asList(args).contains("--rebuild-participation")) {
+                System.out.println(db.rebuildParticipation());
+            }
+            if (Arrays.asList(args).contains("--check-participation")) {
+                System.out.println(db.checkParticipation());
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Print the statistics of every cache and name index of the database.
+     * @param db the database to print the statistics of.
+     */
+    private static void printStatistics(Database db) {
+        db.getObjectCacheStatistics().forEach(System.out::println);
+        System.out.println(db.getQueryCacheStatistics());
+        System.out.println(db.getStatementCacheStatistics());
+        db.getNameIndexStatistics().forEach(System.out::println);
+    }
 }
@@ -4,7 +4,7 @@ import edu.liberty.andrewwerner.iplverification.model.*;
 import edu.liberty.andrewwerner.iplverification.view.*;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class EventPresenter
@@ -13,16 +13,26 @@ import java.util.Collections;
  * @author Andrew Werner
  */
 public final class EventPresenter extends Presenter implements IEventPresenter {
+    private static final int PAGE_SIZE = 128; // Most events do not exceed this number of teams
+
     private final IEventView view;
+    // The event, filters, continuation token, and counts of the teams currently displayed,
+    // only used on the event dispatch thread
+    private IEvent currentEvent = null;
+    private IEventFilterOptions currentFilters = null;
+    private String continuationToken = null;
+    private int totalTeams = 0;
+    private int loadedTeams = 0;
 
     /**
      * Creates a new EventPresenter object.
      * Only one instance of this class needs to exist at any given time.
      * @param database a reference to the model via IDatabase.
+     * @param asyncDatabase a reference to the model via IAsyncDatabase.
      * @param view the event view this presenter manages.
      */
-    public EventPresenter(IDatabase database, IEventView view) {
-        super(PID.Event, database);
+    public EventPresenter(IDatabase database, IAsyncDatabase asyncDatabase, IEventView view) {
+        super(PID.Event, database, asyncDatabase);
         this.view = view;
         view.setPresenter(this);
     }
@@ -41,26 +51,59 @@ public final class EventPresenter extends Presenter implements IEventPresenter {
             event = (IEvent) args[0];
         }
 
-        IEventFilterOptions filters = this.view.getFilters(true);
+        this.updateFilters(event, this.view.getFilters(true));
+    }
+
+    @Override
+    public void updateFilters(IEvent event, IEventFilterOptions options) {
+        this.startNewDisplay();
+        this.displayTeams(event, options);
+    }
+
+    @Override
+    public void loadMoreTeams() {
+        if (this.continuationToken == null) {
+            // Every page is already displayed
+            return;
+        }
 
-        ArrayList<ITeam> teams = this.getDatabase().getEventTeams(event,
-                filters.getQuery(), filters.getVerificationQuery(), false);
-        this.getDatabase().populateRosters(teams);
-        Collections.sort(teams);
+        IEvent event = this.currentEvent;
+        IEventFilterOptions options = this.currentFilters;
+        String token = this.continuationToken;
+        this.getWindow().displayWhenLoaded(() -> {
+            Page<ITeam> teams = this.getTeams(event, options, token);
 
-        this.view.updateView(event, teams);
-        this.getWindow().updateDisplay(this.view.getContentPanel());
+            return () -> {
+                this.continuationToken = teams.getContinuationToken();
+                this.loadedTeams += teams.getItems().size();
+                this.view.appendToView(teams.getItems(), this.getAdditionalTeams(teams));
+                this.getWindow().updateDisplay(this.view.getContentPanel());
+            };
+        });
     }
 
     @Override
-    public void updateFilters(IEvent event, IEventFilterOptions options) {
-        ArrayList<ITeam> teams = this.getDatabase().getEventTeams(event,
-                options.getQuery(), options.getVerificationQuery(), false);
-        this.getDatabase().populateRosters(teams);
-        Collections.sort(teams);
+    public CompletableFuture<String> updateVerifications(ArrayList<ITeam> teams, VerificationStatus status,
+                                                         String note, boolean cascade) {
+        ArrayList<VerificationUpdate<ITeam>> updates = new ArrayList<>();
+        for (ITeam team : teams) {
+            updates.add(new VerificationUpdate<>(team, status, note == null ? team.getVerificationNote() : note));
+        }
+
+        IEvent event = this.currentEvent;
+        IEventFilterOptions options = this.currentFilters;
+        int generation = this.getDisplayGeneration();
+        CompletableFuture<ArrayList<String>> response = this.getAsyncDatabase().updateTeamVerifications(updates,
+                cascade);
 
-        this.view.updateView(event, teams);
-        this.getWindow().updateDisplay(this.view.getContentPanel());
+        // Reload page with new values, once saved, unless the user has moved on to something else in the meantime.
+        return response.thenApply(results -> getSummary(results, teams.size()))
+            .thenComposeAsync(result -> !this.isStillDisplayed(generation, this.view)
+                    ? CompletableFuture.completedFuture(result)
+                    : this.displayTeams(event, options).handle((displayed, error) -> result),
+                EVENT_DISPATCH_THREAD)
+            .handleAsync((result, error) -> error != null ? "An error occurred, changes not saved." : result,
+                EVENT_DISPATCH_THREAD);
     }
 
     /**
@@ -73,4 +116,87 @@ public final class EventPresenter extends Presenter implements IEventPresenter {
     public String importTeams(IEvent event) {
         return this.getDatabase().fetchEventRegistrants(event);
     }
+
+    /*
+     * Helper methods
+     */
+
+    /**
+     * Loads and displays the first page of an event's teams.
+     * @param event the event to display.
+     * @param options filter options as specified by the user.
+     * @return a future that completes once the event is displayed.
+     */
+    private CompletableFuture<Void> displayTeams(IEvent event, IEventFilterOptions options) {
+        return this.getWindow().displayWhenLoaded(() -> {
+            Page<ITeam> teams = this.await(this.getAsyncDatabase().getEventTeams(event, options.getQuery(),
+                    options.getVerificationQuery(), false, PAGE_SIZE, null));
+            // The rosters and the count don't depend on each other, so they are read at the same time.
+            // A single page already knows how many teams there are.
+            CompletableFuture<ArrayList<ITeam>> rosters = this.getAsyncDatabase().populateRosters(teams.getItems());
+            CompletableFuture<Integer> count = teams.hasMore() ? this.getAsyncDatabase().countEventTeams(event,
+                    options.getQuery(), options.getVerificationQuery(), false)
+                : CompletableFuture.completedFuture(teams.getItems().size());
+            this.awaitAll(rosters, count);
+            int total = count.join();
+
+            return () -> {
+                this.currentEvent = event;
+                this.currentFilters = options;
+                this.continuationToken = teams.getContinuationToken();
+                this.totalTeams = total;
+                this.loadedTeams = teams.getItems().size();
+                this.view.updateView(event, teams.getItems(), this.getAdditionalTeams(teams));
+                this.getWindow().updateDisplay(this.view.getContentPanel());
+            };
+        });
+    }
+
+    /**
+     * Retrieves a page of an event's teams, in registration order, along with their rosters.
+     * Called on a background thread by the window.
+     * @param event the event to get teams for.
+     * @param options filter options as specified by the user.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return a page of teams that fit the specified filters.
+     */
+    private Page<ITeam> getTeams(IEvent event, IEventFilterOptions options, String continuationToken) {
+        Page<ITeam> teams = this.await(this.getAsyncDatabase().getEventTeams(event, options.getQuery(),
+                options.getVerificationQuery(), false, PAGE_SIZE, continuationToken));
+        this.await(this.getAsyncDatabase().populateRosters(teams.getItems()));
+        return teams;
+    }
+
+    /**
+     * Summarize the results of updating several teams.
+     * @param results the result of each update.
+     * @param teams the number of teams updated.
+     * @return a human-readable summary of the results.
+     */
+    private static String getSummary(ArrayList<String> results, int teams) {
+        long saved = results.stream().filter("Changes saved!"::equals).count();
+        if (teams == 0) {
+            return "No teams selected, nothing saved.";
+        } else if (saved == teams) {
+            return "Changes saved for " + teams + (teams == 1 ? " team!" : " teams!");
+        } else if (saved == 0) {
+            return results.get(0);
+        }
+
+        return "Changes saved for " + saved + " of " + teams + " teams.";
+    }
+
+    /**
+     * Get the number of teams that have not been displayed yet, after a page has been loaded.
+     * @param teams the page that was just loaded.
+     * @return the number of teams not yet displayed, 0 if that page was the last.
+     */
+    private int getAdditionalTeams(Page<ITeam> teams) {
+        if (!teams.hasMore()) {
+            return 0;
+        }
+
+        // Teams may have been added or removed since they were counted, but there is at least one more
+        return Math.max(this.totalTeams - this.loadedTeams, 1);
+    }
 }
@@ -1,8 +1,13 @@
 package edu.liberty.andrewwerner.iplverification.presenter;
 
 import edu.liberty.andrewwerner.iplverification.model.IEvent;
+import edu.liberty.andrewwerner.iplverification.model.ITeam;
+import edu.liberty.andrewwerner.iplverification.model.VerificationStatus;
 import edu.liberty.andrewwerner.iplverification.view.IEventFilterOptions;
 
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface IEventPresenter
  * Defines public methods specific to the event page's presenter.
@@ -18,6 +23,24 @@ public interface IEventPresenter extends IPresenter {
      */
     void updateFilters(IEvent event, IEventFilterOptions options);
 
+    /**
+     * Prompt this presenter to obtain the next page of teams for the current event and filter options
+     * and add them to the view.
+     */
+    void loadMoreTeams();
+
+    /**
+     * Update the verification status of several of the event's teams at once, saving every change together.
+     * Once saved, the event is reloaded with the current filter options.
+     * @param teams the teams to update.
+     * @param status the new verification status for every team.
+     * @param note the new verification note for every team, or null to keep each team's current note.
+     * @param cascade if true, also give the new status to every unverified player on those teams.
+     * @return a future completing with a human-readable summary of the result, completed on the event dispatch thread.
+     */
+    CompletableFuture<String> updateVerifications(ArrayList<ITeam> teams, VerificationStatus status, String note,
+                                                  boolean cascade);
+
     /**
      * Triggers an import to update this event from the remote API.
      * The presenter itself cannot do this, so it will contact the model to do this.
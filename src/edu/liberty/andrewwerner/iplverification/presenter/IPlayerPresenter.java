@@ -2,6 +2,8 @@ package edu.liberty.andrewwerner.iplverification.presenter;
 
 import edu.liberty.andrewwerner.iplverification.model.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface IPlayerPresenter
  * Defines public methods specific to the player page's presenter.
@@ -22,7 +24,7 @@ public interface IPlayerPresenter extends IPresenter {
      * @param player the player to update.
      * @param status the player's new verification status.
      * @param note the player's new verification note.
-     * @return human-readable string of text indicating the result.
+     * @return a future completing on the event dispatch thread with a human-readable string of text indicating the result.
      */
-    String updateVerification(IPlayer player, VerificationStatus status, String note);
+    CompletableFuture<String> updateVerification(IPlayer player, VerificationStatus status, String note);
 }
@@ -16,6 +16,12 @@ public interface ISearchPresenter extends IPresenter {
      */
     void updateFilters(ISearchFilterOptions options);
 
+    /**
+     * Prompt this presenter to obtain the next page of results for the current filter options
+     * and add them to the view.
+     */
+    void loadMoreResults();
+
     /**
      * Triggers an import of new events from the remote API.
      * The presenter itself cannot do this, so it will contact the model to do this.
@@ -2,6 +2,8 @@ package edu.liberty.andrewwerner.iplverification.presenter;
 
 import edu.liberty.andrewwerner.iplverification.model.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface ITeamPresenter
  * Defines public methods specific to the team page's presenter.
@@ -14,7 +16,7 @@ public interface ITeamPresenter extends IPresenter {
      * @param team the team to update.
      * @param status the team's new verification status.
      * @param note the team's new verification note.
-     * @return human-readable string of text indicating the result.
+     * @return a future completing on the event dispatch thread with a human-readable string of text indicating the result.
      */
-    String updateVerification(ITeam team, VerificationStatus status, String note);
+    CompletableFuture<String> updateVerification(ITeam team, VerificationStatus status, String note);
 }
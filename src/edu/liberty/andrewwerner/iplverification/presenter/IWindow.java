@@ -1,6 +1,8 @@
 package edu.liberty.andrewwerner.iplverification.presenter;
 
 import javax.swing.JPanel;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Interface IWindow
@@ -31,4 +33,26 @@ public interface IWindow {
      * @param content the GUI content to display to the user.
      */
     void updateDisplay(JPanel content);
+
+    /**
+     * Is the content provided what the window is displaying?
+     * False while another view is loading, as the loading placeholder is displayed instead.
+     * Must be called on the event dispatch thread.
+     * @param content the GUI content to check for.
+     * @return true if the content is displayed.
+     */
+    boolean isDisplayed(JPanel content);
+
+    /**
+     * Load the data for a view in the background, then display it.
+     * A loading placeholder is displayed immediately and the loader is run on a worker thread.
+     * The loader returns the steps needed to display the loaded data, which are then run on the event dispatch thread.
+     * Starting another load (including by changing views) cancels this one, along with any query it is running.
+     * Must be called on the event dispatch thread.
+     * @param loader fetches the view's data off of the event dispatch thread and returns the steps to display it.
+     *               Must not touch any GUI components.
+     * @return a future completing on the event dispatch thread once the view is displayed.
+     * It is cancelled if the load is cancelled, and completes exceptionally if the loader fails.
+     */
+    CompletableFuture<Void> displayWhenLoaded(Supplier<Runnable> loader);
 }
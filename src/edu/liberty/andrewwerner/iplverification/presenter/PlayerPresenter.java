@@ -3,8 +3,9 @@ package edu.liberty.andrewwerner.iplverification.presenter;
 import edu.liberty.andrewwerner.iplverification.model.*;
 import edu.liberty.andrewwerner.iplverification.view.IPlayerView;
 
+import java.time.Period;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class PlayerPresenter
@@ -13,16 +14,22 @@ import java.util.stream.Collectors;
  * @author Andrew Werner
  */
 public final class PlayerPresenter extends Presenter implements IPlayerPresenter {
+    private static final Period PARTICIPATION_WINDOW = Period.ofMonths(3);
+
     private final IPlayerView view;
+    // The player and participation currently displayed, only used on the event dispatch thread
+    private IPlayer currentPlayer = null;
+    private ArrayList<IPlayer> currentParticipation = new ArrayList<>();
 
     /**
      * Creates a new PlayerPresenter object.
      * Only one instance of this class needs to exist at any given time.
      * @param database a reference to the model via IDatabase.
+     * @param asyncDatabase a reference to the model via IAsyncDatabase.
      * @param view the player view this presenter manages.
      */
-    public PlayerPresenter(IDatabase database, IPlayerView view) {
-        super(PID.Player, database);
+    public PlayerPresenter(IDatabase database, IAsyncDatabase asyncDatabase, IPlayerView view) {
+        super(PID.Player, database, asyncDatabase);
         this.view = view;
         this.view.setPresenter(this);
     }
@@ -46,20 +53,64 @@ public final class PlayerPresenter extends Presenter implements IPlayerPresenter
 
     @Override
     public void updateFilters(IPlayer player, String option) {
-        ArrayList<IPlayer> participation = this.getDatabase().getRecentParticipationFor(player).stream()
-                .filter(p -> p.getTeam().getEvent().getName().toLowerCase().startsWith(option.toLowerCase()))
-                .sorted().collect(Collectors.toCollection(ArrayList::new));
-
-        this.view.updateView(player, participation);
-        this.getWindow().updateDisplay(this.view.getContentPanel());
+        this.startNewDisplay();
+        this.getWindow().displayWhenLoaded(() -> this.prepareDisplay(player, option));
     }
 
     @Override
-    public String updateVerification(IPlayer player, VerificationStatus status, String note) {
-        String response = this.getDatabase().updatePlayerVerification(player, status, note);
+    public CompletableFuture<String> updateVerification(IPlayer player, VerificationStatus status, String note) {
+        CompletableFuture<String> response = this.getAsyncDatabase().updatePlayerVerification(player, status, note);
+        String option = this.view.getFilters(false);
+        int generation = this.getDisplayGeneration();
+
+        if (this.getAsyncDatabase().isWriteBehind()) {
+            // The player has already been changed, redisplay it without waiting for the database.
+            // If the change can't be saved the player is changed back, redisplay it again if the user is still looking at it.
+            this.displayPlayer(player, this.currentParticipation);
+            return response.thenApplyAsync(result -> {
+                if (this.isStillDisplayed(generation, this.view)) {
+                    this.displayPlayer(player, this.currentParticipation);
+                }
+                return result;
+            }, EVENT_DISPATCH_THREAD);
+        }
+
+        // Reload page with new values, once saved, unless the user has moved on to something else in the meantime.
+        return response.thenComposeAsync(result -> !this.isStillDisplayed(generation, this.view)
+                ? CompletableFuture.completedFuture(result)
+                : this.getWindow().displayWhenLoaded(() -> this.prepareDisplay(player, option))
+                    .handle((displayed, error) -> result), EVENT_DISPATCH_THREAD)
+            .handleAsync((result, error) -> error != null ? "An error occurred, changes not saved." : result,
+                EVENT_DISPATCH_THREAD);
+    }
+
+    /*
+     * Helper methods
+     */
 
-        // Reload page with new values.
-        this.updateFilters(player, this.view.getFilters(false));
-        return response;
+    /**
+     * Retrieves a player's recent participation in events matching a filter from the database.
+     * Called on a background thread by the window.
+     * @param player the player to fetch information about.
+     * @param option the event name search string to filter by.
+     * @return the steps to display the player and their participation, to be run on the event dispatch thread.
+     */
+    private Runnable prepareDisplay(IPlayer player, String option) {
+        ArrayList<IPlayer> participation = this.await(this.getAsyncDatabase().getRecentParticipationFor(player,
+                PARTICIPATION_WINDOW, option));
+
+        return () -> this.displayPlayer(player, participation);
+    }
+
+    /**
+     * Display a player and their recent participation. Called on the event dispatch thread.
+     * @param player the player to display.
+     * @param participation the player's filtered and sorted recent participation.
+     */
+    private void displayPlayer(IPlayer player, ArrayList<IPlayer> participation) {
+        this.currentPlayer = player;
+        this.currentParticipation = participation;
+        this.view.updateView(player, participation);
+        this.getWindow().updateDisplay(this.view.getContentPanel());
     }
 }
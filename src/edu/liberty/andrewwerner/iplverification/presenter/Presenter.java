@@ -1,6 +1,12 @@
 package edu.liberty.andrewwerner.iplverification.presenter;
 
 import edu.liberty.andrewwerner.iplverification.model.*;
+import edu.liberty.andrewwerner.iplverification.view.IView;
+
+import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
  * Abstract Class Presenter
@@ -9,18 +15,29 @@ import edu.liberty.andrewwerner.iplverification.model.*;
  * @author Andrew Werner
  */
 public abstract class Presenter implements IPresenter {
+    /**
+     * Runs tasks on the Swing event dispatch thread.
+     * Used to hand results from the asynchronous database back to the views, which may only be touched from that thread.
+     */
+    protected static final Executor EVENT_DISPATCH_THREAD = SwingUtilities::invokeLater;
+
     private final PID id;
     private final IDatabase database;
+    private final IAsyncDatabase asyncDatabase;
     private IWindow window;
+    // Incremented each time this presenter starts displaying something new, only used on the event dispatch thread
+    private int displayGeneration = 0;
 
     /**
      * Sets up instance variables related to this abstract superclass.
      * @param id the presenter's unique ID.
      * @param database a reference to the model via IDatabase.
+     * @param asyncDatabase a reference to the model via IAsyncDatabase, for requests that shouldn't block the GUI.
      */
-    public Presenter(PID id, IDatabase database) {
+    public Presenter(PID id, IDatabase database, IAsyncDatabase asyncDatabase) {
         this.id = id;
         this.database = database;
+        this.asyncDatabase = asyncDatabase;
         this.window = null; // Delayed setup
     }
 
@@ -41,6 +58,15 @@ public abstract class Presenter implements IPresenter {
         return this.database;
     }
 
+    /**
+     * Allows a presenter to access the model through interface IAsyncDatabase.
+     * Only intended to be called within the presenter subclass.
+     * @return a reference to the model via interface IAsyncDatabase.
+     */
+    protected final IAsyncDatabase getAsyncDatabase() {
+        return this.asyncDatabase;
+    }
+
     /**
      * Allows a presenter to access the window through interface IWindow.
      * Only intended to be called within the presenter subclass.
@@ -50,6 +76,71 @@ public abstract class Presenter implements IPresenter {
         return window;
     }
 
+    /**
+     * Record that this presenter is starting to display something new, such as another team or other filters.
+     * Work started for what was displayed before, such as reloading it once saved, checks this before displaying.
+     * Called on the event dispatch thread.
+     */
+    protected final void startNewDisplay() {
+        this.displayGeneration++;
+    }
+
+    /**
+     * Get a marker of what this presenter is displaying, to check against later with isStillDisplayed.
+     * Called on the event dispatch thread.
+     * @return the current display generation.
+     */
+    protected final int getDisplayGeneration() {
+        return this.displayGeneration;
+    }
+
+    /**
+     * Is the window still displaying what this presenter was displaying when getDisplayGeneration was called?
+     * False once this presenter has started displaying something else, or the user has moved on to another view,
+     * or another view is loading. Called on the event dispatch thread.
+     * @param generation the display generation returned by getDisplayGeneration.
+     * @param view this presenter's view.
+     * @return true if it is still displayed.
+     */
+    protected final boolean isStillDisplayed(int generation, IView view) {
+        return generation == this.displayGeneration && this.window.isDisplayed(view.getContentPanel());
+    }
+
+    /**
+     * Wait for a read started through the asynchronous database. Called on a background thread by the window.
+     * If the window cancels the load while waiting, the read is cancelled along with its query.
+     * @param read the read to wait for.
+     * @return the result of the read.
+     * @param <T> the type of the result.
+     * @throws RuntimeException if the read failed, or the load was cancelled while waiting.
+     */
+    protected final <T> T await(CompletableFuture<T> read) {
+        this.awaitAll(read);
+        return read.join();
+    }
+
+    /**
+     * Wait for several reads started through the asynchronous database, which run at the same time.
+     * Called on a background thread by the window. If the window cancels the load while waiting,
+     * the reads are cancelled along with their queries.
+     * @param reads the reads to wait for.
+     * @throws RuntimeException if a read failed, or the load was cancelled while waiting.
+     */
+    protected final void awaitAll(CompletableFuture<?>... reads) {
+        try {
+            CompletableFuture.allOf(reads).get();
+        } catch (InterruptedException e) {
+            this.cancelAll(reads);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error while waiting for the database: ", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Error while reading from the database: ", e.getCause());
+        }
+    }
+
     public final PID getID() {
         return this.id;
     }
@@ -57,4 +148,18 @@ public abstract class Presenter implements IPresenter {
     public final void changeView(PID id, Object... args) {
         this.window.displayView(id, args);
     }
+
+    /*
+     * Helper methods
+     */
+
+    /**
+     * Cancel reads that are no longer needed, along with their queries. Reads that are already done are unaffected.
+     * @param reads the reads to cancel.
+     */
+    private void cancelAll(CompletableFuture<?>... reads) {
+        for (CompletableFuture<?> read : reads) {
+            read.cancel(false);
+        }
+    }
 }
@@ -4,7 +4,7 @@ import edu.liberty.andrewwerner.iplverification.model.*;
 import edu.liberty.andrewwerner.iplverification.view.*;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class SearchPresenter
@@ -13,16 +13,28 @@ import java.util.Collections;
  * @author Andrew Werner
  */
 public final class SearchPresenter extends Presenter implements ISearchPresenter {
+    private static final int PAGE_SIZE = 128;
+    // Results are counted only this far past those loaded, a broad search costs no more to count than a narrow one
+    private static final int COUNT_LIMIT = 10000;
+
     private final ISearchView view;
+    // The filters, continuation token, and counts of the results currently displayed,
+    // only used on the event dispatch thread
+    private ISearchFilterOptions currentFilters = null;
+    private String continuationToken = null;
+    private int totalResults = 0;
+    private boolean exactCount = true;
+    private int loadedResults = 0;
 
     /**
      * Creates a new SearchPresenter object.
      * Only one instance of this class needs to exist at any given time.
      * @param database a reference to the model via IDatabase.
+     * @param asyncDatabase a reference to the model via IAsyncDatabase.
      * @param view the search view this presenter manages.
      */
-    public SearchPresenter(IDatabase database, ISearchView view) {
-        super(PID.Search, database);
+    public SearchPresenter(IDatabase database, IAsyncDatabase asyncDatabase, ISearchView view) {
+        super(PID.Search, database, asyncDatabase);
         this.view = view;
         this.view.setPresenter(this);
     }
@@ -34,19 +46,66 @@ public final class SearchPresenter extends Presenter implements ISearchPresenter
             throw new IllegalArgumentException("When loading search display, expected 0 arguments and got " + args.length);
         }
 
-        ISearchFilterOptions filters = this.view.getFilters(true);
-        ArrayList<? extends IDataObject> dataObjects = this.getDataObjects(filters);
-
-        this.view.updateView(dataObjects);
-        this.getWindow().updateDisplay(this.view.getContentPanel());
+        this.updateFilters(this.view.getFilters(true));
     }
 
     @Override
     public void updateFilters(ISearchFilterOptions options) {
-        ArrayList<? extends IDataObject> dataObjects = this.getDataObjects(options);
+        this.getWindow().displayWhenLoaded(() -> {
+            Page<? extends IDataObject> page = this.getPage(options, null);
+            int loaded = page.getItems().size();
+            // The rosters and the count don't depend on each other, so they are read at the same time.
+            // A single page already knows how many results there are.
+            CompletableFuture<?> rosters = this.populateRosters(page);
+            CompletableFuture<Integer> count = page.hasMore() ? this.countResults(options, loaded + COUNT_LIMIT)
+                : CompletableFuture.completedFuture(loaded);
+            this.awaitAll(rosters, count);
+            int total = count.join();
+
+            return () -> {
+                this.currentFilters = options;
+                this.continuationToken = page.getContinuationToken();
+                this.totalResults = total;
+                this.exactCount = total < loaded + COUNT_LIMIT;
+                this.loadedResults = loaded;
+                this.view.updateView(page.getItems(), this.getAdditionalResults(page), this.exactCount);
+                this.getWindow().updateDisplay(this.view.getContentPanel());
+            };
+        });
+    }
+
+    @Override
+    public void loadMoreResults() {
+        if (this.continuationToken == null) {
+            // Every page is already displayed
+            return;
+        }
 
-        this.view.updateView(dataObjects);
-        this.getWindow().updateDisplay(this.view.getContentPanel());
+        ISearchFilterOptions options = this.currentFilters;
+        String token = this.continuationToken;
+        boolean recount = !this.exactCount;
+        int loadedBefore = this.loadedResults;
+        this.getWindow().displayWhenLoaded(() -> {
+            Page<? extends IDataObject> page = this.getPage(options, token);
+            int loaded = loadedBefore + page.getItems().size();
+            // Only the results up to the limit were counted, count as far past the new page as the first count went
+            CompletableFuture<?> rosters = this.populateRosters(page);
+            CompletableFuture<Integer> count = recount && page.hasMore()
+                ? this.countResults(options, loaded + COUNT_LIMIT) : CompletableFuture.completedFuture(-1);
+            this.awaitAll(rosters, count);
+            int total = count.join();
+
+            return () -> {
+                this.continuationToken = page.getContinuationToken();
+                this.loadedResults = loaded;
+                if (total >= 0) {
+                    this.totalResults = total;
+                    this.exactCount = total < loaded + COUNT_LIMIT;
+                }
+                this.view.appendToView(page.getItems(), this.getAdditionalResults(page), this.exactCount);
+                this.getWindow().updateDisplay(this.view.getContentPanel());
+            };
+        });
     }
 
     /**
@@ -64,24 +123,69 @@ public final class SearchPresenter extends Presenter implements ISearchPresenter
      */
 
     /**
-     * Retrieves a list of events, teams, or players from the database and processes them.
+     * Retrieves a page of events, teams, or players from the database.
+     * Results are in a fixed order, events newest first and teams and players by name, so later pages continue
+     * where earlier ones left off.
+     * Called on a background thread by the window.
      * @param filters filter options as specified by the user, used to determine what to retrieve.
-     * @return A list of IDataObjects that fit the specified filters.
+     * @param continuationToken the token of the previous page, or null for the first page.
+     * @return A page of IDataObjects that fit the specified filters.
+     */
+    private Page<? extends IDataObject> getPage(ISearchFilterOptions filters, String continuationToken) {
+        if (filters.getSearchType() == ISearchFilterOptions.SearchType.EVENT) {
+            return this.await(this.getAsyncDatabase().searchEvents(filters.getQuery(), PAGE_SIZE, continuationToken));
+        } else if (filters.getSearchType() == ISearchFilterOptions.SearchType.TEAM) {
+            return this.await(this.getAsyncDatabase().searchTeams(filters.getQuery(), PAGE_SIZE, continuationToken));
+        } else {
+            return this.await(this.getAsyncDatabase().searchPlayers(filters.getQuery(), PAGE_SIZE, continuationToken));
+        }
+    }
+
+    /**
+     * Starts loading the rosters of the teams on a page of results, the only rosters that will be displayed.
+     * @param page the page of results.
+     * @return a read completing once the rosters are loaded, already complete if the page has no teams.
+     */
+    private CompletableFuture<?> populateRosters(Page<? extends IDataObject> page) {
+        ArrayList<ITeam> teams = new ArrayList<>();
+        for (IDataObject item : page.getItems()) {
+            if (item instanceof ITeam) {
+                teams.add((ITeam) item);
+            }
+        }
+
+        return teams.isEmpty() ? CompletableFuture.completedFuture(null)
+            : this.getAsyncDatabase().populateRosters(teams);
+    }
+
+    /**
+     * Starts counting the events, teams, or players matching a search without loading them, stopping at a limit.
+     * @param filters filter options as specified by the user, used to determine what to count.
+     * @param limit the most results to count.
+     * @return a read completing with the number of IDataObjects that fit the specified filters,
+     * or limit if at least that many do.
      */
-    private ArrayList<? extends IDataObject> getDataObjects(ISearchFilterOptions filters) {
+    private CompletableFuture<Integer> countResults(ISearchFilterOptions filters, int limit) {
         if (filters.getSearchType() == ISearchFilterOptions.SearchType.EVENT) {
-            ArrayList<IEvent> events = this.getDatabase().searchEvents(filters.getQuery());
-            Collections.sort(events);
-            return events;
+            return this.getAsyncDatabase().countEvents(filters.getQuery(), limit);
         } else if (filters.getSearchType() == ISearchFilterOptions.SearchType.TEAM) {
-            ArrayList<ITeam> teams = this.getDatabase().searchTeams(filters.getQuery());
-            this.getDatabase().populateRosters(teams);
-            Collections.sort(teams);
-            return teams;
+            return this.getAsyncDatabase().countTeams(filters.getQuery(), limit);
         } else {
-            ArrayList<IPlayer> players = this.getDatabase().searchPlayers(filters.getQuery());
-            Collections.sort(players);
-            return players;
+            return this.getAsyncDatabase().countPlayers(filters.getQuery(), limit);
         }
     }
+
+    /**
+     * Get the number of results that have not been displayed yet, after a page has been loaded.
+     * @param page the page that was just loaded.
+     * @return the number of results not yet displayed, 0 if that page was the last.
+     */
+    private int getAdditionalResults(Page<? extends IDataObject> page) {
+        if (!page.hasMore()) {
+            return 0;
+        }
+
+        // Results may have been added or removed since they were counted, but there is at least one more
+        return Math.max(this.totalResults - this.loadedResults, 1);
+    }
 }
@@ -4,7 +4,7 @@ import edu.liberty.andrewwerner.iplverification.model.*;
 import edu.liberty.andrewwerner.iplverification.view.ITeamView;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class TeamPresenter
@@ -14,15 +14,19 @@ import java.util.Collections;
  */
 public final class TeamPresenter extends Presenter implements ITeamPresenter {
     private final ITeamView view;
+    // The team and players currently displayed, only used on the event dispatch thread
+    private ITeam currentTeam = null;
+    private ArrayList<IPlayer> currentPlayers = new ArrayList<>();
 
     /**
      * Creates a new TeamPresenter object.
      * Only one instance of this class needs to exist at any given time.
      * @param database a reference to the model via IDatabase.
+     * @param asyncDatabase a reference to the model via IAsyncDatabase.
      * @param view the team view this presenter manages.
      */
-    public TeamPresenter(IDatabase database, ITeamView view) {
-        super(PID.Team, database);
+    public TeamPresenter(IDatabase database, IAsyncDatabase asyncDatabase, ITeamView view) {
+        super(PID.Team, database, asyncDatabase);
         this.view = view;
         this.view.setPresenter(this);
     }
@@ -41,19 +45,60 @@ public final class TeamPresenter extends Presenter implements ITeamPresenter {
             team = (ITeam) args[0];
         }
 
-        ArrayList<IPlayer> players = this.getDatabase().getTeamMembers(team);
-        Collections.sort(players);
-
-        this.view.updateView(team, players);
-        this.getWindow().updateDisplay(this.view.getContentPanel());
+        this.startNewDisplay();
+        this.getWindow().displayWhenLoaded(() -> this.prepareDisplay(team));
     }
 
     @Override
-    public String updateVerification(ITeam team, VerificationStatus status, String note) {
-        String response = this.getDatabase().updateTeamVerification(team, status, note);
+    public CompletableFuture<String> updateVerification(ITeam team, VerificationStatus status, String note) {
+        CompletableFuture<String> response = this.getAsyncDatabase().updateTeamVerification(team, status, note);
+        int generation = this.getDisplayGeneration();
+
+        if (this.getAsyncDatabase().isWriteBehind()) {
+            // The team has already been changed, redisplay it without waiting for the database.
+            // If the change can't be saved the team is changed back, redisplay it again if the user is still looking at it.
+            this.displayTeam(team, this.currentPlayers);
+            return response.thenApplyAsync(result -> {
+                if (this.isStillDisplayed(generation, this.view)) {
+                    this.displayTeam(team, this.currentPlayers);
+                }
+                return result;
+            }, EVENT_DISPATCH_THREAD);
+        }
+
+        // Reload page with new values, once saved, unless the user has moved on to something else in the meantime.
+        return response.thenComposeAsync(result -> !this.isStillDisplayed(generation, this.view)
+                ? CompletableFuture.completedFuture(result)
+                : this.getWindow().displayWhenLoaded(() -> this.prepareDisplay(team))
+                    .handle((displayed, error) -> result), EVENT_DISPATCH_THREAD)
+            .handleAsync((result, error) -> error != null ? "An error occurred, changes not saved." : result,
+                EVENT_DISPATCH_THREAD);
+    }
+
+    /*
+     * Helper methods
+     */
 
-        // Reload page with new values.
-        this.loadDisplay(team);
-        return response;
+    /**
+     * Retrieves the roster of a team, sorted by the database. Called on a background thread by the window.
+     * @param team the team to get players from.
+     * @return the steps to display the team and its players, to be run on the event dispatch thread.
+     */
+    private Runnable prepareDisplay(ITeam team) {
+        ArrayList<IPlayer> players = this.await(this.getAsyncDatabase().getTeamMembers(team));
+
+        return () -> this.displayTeam(team, players);
+    }
+
+    /**
+     * Display a team and its players. Called on the event dispatch thread.
+     * @param team the team to display.
+     * @param players the team's sorted roster.
+     */
+    private void displayTeam(ITeam team, ArrayList<IPlayer> players) {
+        this.currentTeam = team;
+        this.currentPlayers = players;
+        this.view.updateView(team, players);
+        this.getWindow().updateDisplay(this.view.getContentPanel());
     }
 }
@@ -1,7 +1,13 @@
 package edu.liberty.andrewwerner.iplverification.presenter;
 
+import edu.liberty.andrewwerner.iplverification.model.IDatabase;
+
 import javax.swing.*;
+import java.awt.BorderLayout;
 import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Class Window
@@ -11,15 +17,31 @@ import java.util.ArrayList;
  * @author Andrew Werner
  */
 public final class Window implements IWindow {
+    private static final int LOADER_THREADS = 2;
+
+    private final IDatabase database;
     private final ArrayList<IPresenter> presenters;
+    private final ExecutorService loaders;
     private JFrame window = null;
+    private JPanel loadingPanel = null;
+    private BackgroundLoad currentLoad = null;
 
     /**
      * Creates a new instance of class Window.
      * Only one window object should need to exist at any point.
+     * @param database a reference to the model, used to cancel the queries of abandoned loads.
      */
-    public Window() {
+    public Window(IDatabase database) {
+        this.database = database;
         this.presenters = new ArrayList<>();
+
+        AtomicInteger count = new AtomicInteger();
+        this.loaders = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "view-loader-" + count.incrementAndGet());
+            // Don't keep the program running once the window is closed
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
@@ -62,4 +84,147 @@ public final class Window implements IWindow {
             this.window.repaint();
         }
     }
+
+    @Override
+    public boolean isDisplayed(JPanel content) {
+        return this.window != null && this.window.getContentPane() == content;
+    }
+
+    @Override
+    public CompletableFuture<Void> displayWhenLoaded(Supplier<Runnable> loader) {
+        JPanel previousContent = this.window == null ? null : (JPanel) this.window.getContentPane();
+        if (this.currentLoad != null) {
+            // Only the latest view matters
+            this.currentLoad.cancel();
+            if (previousContent == this.loadingPanel) {
+                previousContent = this.currentLoad.previousContent;
+            }
+        }
+
+        BackgroundLoad load = new BackgroundLoad(loader, previousContent);
+        this.currentLoad = load;
+        this.updateDisplay(this.getLoadingPanel());
+        this.loaders.execute(load);
+        return load.displayed;
+    }
+
+    /*
+     * Helper methods
+     */
+
+    /**
+     * Get the placeholder displayed while a view is loading, building it the first time.
+     * @return the loading placeholder.
+     */
+    private JPanel getLoadingPanel() {
+        if (this.loadingPanel == null) {
+            this.loadingPanel = new JPanel(new BorderLayout());
+            this.loadingPanel.add(new JLabel("Loading...", SwingConstants.CENTER), BorderLayout.CENTER);
+        }
+
+        return this.loadingPanel;
+    }
+
+    /**
+     * Class BackgroundLoad
+     * A single view load started by displayWhenLoaded. Runs its loader on a worker thread,
+     * then displays the result on the event dispatch thread unless it was cancelled in the meantime.
+     */
+    private final class BackgroundLoad implements Runnable {
+        private final Supplier<Runnable> loader;
+        private final JPanel previousContent;
+        private final CompletableFuture<Void> displayed;
+        private Thread thread = null;
+        private boolean cancelled = false;
+
+        /**
+         * Creates a new BackgroundLoad.
+         * @param loader fetches the view's data and returns the steps to display it.
+         * @param previousContent the content displayed before this load started, restored if the load fails.
+         */
+        BackgroundLoad(Supplier<Runnable> loader, JPanel previousContent) {
+            this.loader = loader;
+            this.previousContent = previousContent;
+            this.displayed = new CompletableFuture<>();
+        }
+
+        /**
+         * Run the loader. Called on a worker thread.
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (this.cancelled) {
+                    return;
+                }
+
+                this.thread = Thread.currentThread();
+            }
+
+            Runnable display;
+            try {
+                display = this.loader.get();
+            } catch (RuntimeException e) {
+                SwingUtilities.invokeLater(() -> this.fail(e));
+                return;
+            } finally {
+                synchronized (this) {
+                    this.thread = null;
+                }
+
+                // Clear any interrupt left over from being cancelled, the thread is reused
+                Thread.interrupted();
+            }
+
+            SwingUtilities.invokeLater(() -> this.display(display));
+        }
+
+        /**
+         * Cancel this load, and the query it is running if any. Called on the event dispatch thread.
+         */
+        synchronized void cancel() {
+            this.cancelled = true;
+            this.displayed.cancel(false);
+            if (this.thread != null) {
+                Window.this.database.cancelQueries(this.thread);
+            }
+        }
+
+        /**
+         * Display the loaded view unless this load was cancelled. Called on the event dispatch thread.
+         * @param display the steps to display the loaded view.
+         */
+        private void display(Runnable display) {
+            if (this.displayed.isDone()) {
+                return;
+            }
+
+            try {
+                display.run();
+                this.displayed.complete(null);
+            } catch (RuntimeException e) {
+                this.fail(e);
+            }
+        }
+
+        /**
+         * Report a failed load to the user unless this load was cancelled, in which case the
+         * failure was most likely caused by cancelling it. Called on the event dispatch thread.
+         * @param error the error that caused the load to fail.
+         */
+        private void fail(RuntimeException error) {
+            if (this.displayed.isDone()) {
+                return;
+            }
+
+            this.displayed.completeExceptionally(error);
+            if (this.previousContent != null) {
+                Window.this.updateDisplay(this.previousContent);
+            }
+
+            String message = String.format("An error occurred:%n%n%s%n%n%s", error, error.getCause());
+            JOptionPane.showMessageDialog(null, message,
+                "IPL Verification System", JOptionPane.ERROR_MESSAGE);
+        }
+    }
 }
@@ -36,11 +36,13 @@ public final class EventView implements IEventView {
     private JPanel contentPanel;
     private JLabel eventURL;
     private JButton goToSearchButton;
+    private JButton verifyTeamsButton;
 
     private IEventPresenter presenter;
     private final IWidgetFactory factory;
     private IEvent event;
     private URLHandler urlHandler;
+    private final ArrayList<ITeam> teams;
 
     private static final String PLACEHOLDER_TEXT = "Search by team name...";
 
@@ -52,6 +54,7 @@ public final class EventView implements IEventView {
         this.factory = factory;
         this.presenter = null;
         this.event = null;
+        this.teams = new ArrayList<>();
 
         // One-time loads
         this.searchField.setForeground(Color.GRAY);
@@ -84,6 +87,7 @@ public final class EventView implements IEventView {
         this.goToSearchButton.addActionListener(e -> this.presenter.changeView(IPresenter.PID.Search));
         this.updateFiltersButton.addActionListener(e ->
                 this.presenter.updateFilters(this.event, this.getFilters(false)));
+        this.verifyTeamsButton.addActionListener(e -> this.verifyTeams());
     }
 
     @Override
@@ -112,7 +116,7 @@ public final class EventView implements IEventView {
     }
 
     @Override
-    public void updateView(IEvent event, ArrayList<ITeam> teams) {
+    public void updateView(IEvent event, ArrayList<ITeam> teams, int additionalTeams) {
         this.event = event;
         this.eventName.setText(event.getName());
         this.eventDate.setText(event.getStartDateString());
@@ -127,7 +131,63 @@ public final class EventView implements IEventView {
         this.importEventButton.setEnabled(false);
         this.importResponse.setText("Updating of events is not available.");
 
-        JPanel wrapper = this.factory.buildWidgets(this.presenter, teams, false);
+        this.teams.clear();
+        this.teams.addAll(teams);
+        this.displayTeams(additionalTeams);
+    }
+
+    @Override
+    public void appendToView(ArrayList<ITeam> teams, int additionalTeams) {
+        int position = this.resultsPanel.getVerticalScrollBar().getValue();
+        this.teams.addAll(teams);
+        this.displayTeams(additionalTeams);
+        // The new widgets are laid out later, return to the user's place in the list once they are
+        SwingUtilities.invokeLater(() -> this.resultsPanel.getVerticalScrollBar().setValue(position));
+    }
+
+    /**
+     * Ask the user which of the displayed teams to update and what to set their verification status to,
+     * then save every change at once.
+     */
+    private void verifyTeams() {
+        JList<String> teamList = new JList<>(this.teams.stream().map(ITeam::getName).toArray(String[]::new));
+        teamList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        teamList.setVisibleRowCount(12);
+        JComboBox<VerificationStatus> statusDropdown = new JComboBox<>(VerificationStatus.values());
+        JTextField noteField = new JTextField();
+        JCheckBox cascadeCheckBox = new JCheckBox("Also give this status to the teams' unverified players");
+
+        Object[] message = {"Teams (hold Ctrl or Shift to select several):", new JScrollPane(teamList),
+                "New verification status:", statusDropdown,
+                "New verification note (leave blank to keep each team's note):", noteField, cascadeCheckBox};
+        int option = JOptionPane.showConfirmDialog(this.contentPanel, message, "Verify Multiple Teams",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (option != JOptionPane.OK_OPTION || teamList.isSelectionEmpty()) {
+            return;
+        }
+
+        ArrayList<ITeam> selected = new ArrayList<>();
+        for (int index : teamList.getSelectedIndices()) {
+            selected.add(this.teams.get(index));
+        }
+        VerificationStatus status = statusDropdown.getItemAt(statusDropdown.getSelectedIndex());
+        String note = noteField.getText().isEmpty() ? null : noteField.getText();
+
+        this.verifyTeamsButton.setEnabled(false);
+        this.presenter.updateVerifications(selected, status, note, cascadeCheckBox.isSelected())
+                .thenAccept(result -> {
+                    this.verifyTeamsButton.setEnabled(true);
+                    JOptionPane.showMessageDialog(this.contentPanel, result);
+                });
+    }
+
+    /**
+     * Replace the displayed widgets with ones for every team loaded so far.
+     * @param additionalTeams the number of teams on later pages.
+     */
+    private void displayTeams(int additionalTeams) {
+        JPanel wrapper = this.factory.buildWidgets(this.presenter, this.teams, false,
+                additionalTeams, true, this.presenter::loadMoreTeams);
         this.resultsPanel.setViewportView(wrapper);
         this.resultsPanel.getVerticalScrollBar().setUnitIncrement(10);
     }
@@ -196,7 +256,10 @@ public final class EventView implements IEventView {
         contentPanel.add(goToSearchButton, new GridConstraints(2, 1, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_HORIZONTAL, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
         final JLabel label2 = new JLabel();
         label2.setText("Registered Teams");
-        contentPanel.add(label2, new GridConstraints(5, 0, 1, 2, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        contentPanel.add(label2, new GridConstraints(5, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        verifyTeamsButton = new JButton();
+        verifyTeamsButton.setText("Verify Multiple Teams...");
+        contentPanel.add(verifyTeamsButton, new GridConstraints(5, 1, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_HORIZONTAL, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
         final JSeparator separator1 = new JSeparator();
         contentPanel.add(separator1, new GridConstraints(4, 0, 1, 2, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH, GridConstraints.SIZEPOLICY_WANT_GROW, GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
     }
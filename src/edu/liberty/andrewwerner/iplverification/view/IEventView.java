@@ -31,7 +31,15 @@ public interface IEventView extends IView {
      * Update this view to display information using the provided arguments.
      * Not defined in IView because arguments taken will vary from view to view.
      * @param event the event that the view should feature.
-     * @param teams the teams registered for the event.
+     * @param teams the first page of teams registered for the event.
+     * @param additionalTeams the number of teams on later pages, 0 if this is the only page.
      */
-    void updateView(IEvent event, ArrayList<ITeam> teams);
+    void updateView(IEvent event, ArrayList<ITeam> teams, int additionalTeams);
+
+    /**
+     * Add the next page of teams to those already displayed, keeping the user's place in the list.
+     * @param teams the next page of teams registered for the featured event.
+     * @param additionalTeams the number of teams on later pages, 0 if this is the last page.
+     */
+    void appendToView(ArrayList<ITeam> teams, int additionalTeams);
 }
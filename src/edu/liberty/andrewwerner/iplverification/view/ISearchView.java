@@ -30,7 +30,17 @@ public interface ISearchView extends IView {
     /**
      * Update this view to display information using the provided arguments.
      * Not defined in IView because arguments taken will vary from view to view.
-     * @param entities a list of IDataObjects (all the same subtype) to display.
+     * @param entities the first page of IDataObjects (all the same subtype) to display.
+     * @param additionalResults the number of results on later pages, 0 if this is the only page.
+     * @param exactCount false if the results were only counted up to a limit, so there may be more than additionalResults.
      */
-    void updateView(ArrayList<? extends IDataObject> entities);
+    void updateView(ArrayList<? extends IDataObject> entities, int additionalResults, boolean exactCount);
+
+    /**
+     * Add the next page of results to those already displayed, keeping the user's place in the list.
+     * @param entities the next page of IDataObjects, the same subtype as those already displayed.
+     * @param additionalResults the number of results on later pages, 0 if this is the last page.
+     * @param exactCount false if the results were only counted up to a limit, so there may be more than additionalResults.
+     */
+    void appendToView(ArrayList<? extends IDataObject> entities, int additionalResults, boolean exactCount);
 }
@@ -24,4 +24,20 @@ public interface IWidgetFactory {
      * @param <T> A subclass of interface IDataObject.
      */
     <T extends IDataObject> JPanel buildWidgets(IPresenter presenter, ArrayList<T> data, boolean displayParents);
+
+    /**
+     * Builds a widget for every data object in a paged list, which are all loaded pages of the results so far.
+     * If there are more pages, the last widget lets the user load the next one.
+     * @param presenter the presenter each widget can refer to when any of its buttons are clicked.
+     * @param data The list of data objects to create widgets from.
+     * @param displayParents most data objects have parent data objects.
+     *                       Optionally a widget can display references to these parents.
+     * @param additionalResults the number of results that have not been loaded yet, 0 if there are no more pages.
+     * @param exactCount false if the results were only counted up to a limit, so there may be more than additionalResults.
+     * @param loadMore called when the user asks for the next page.
+     * @return a JPanel containing all the widgets created from the data objects.
+     * @param <T> A subclass of interface IDataObject.
+     */
+    <T extends IDataObject> JPanel buildWidgets(IPresenter presenter, ArrayList<T> data, boolean displayParents,
+                                                int additionalResults, boolean exactCount, Runnable loadMore);
 }
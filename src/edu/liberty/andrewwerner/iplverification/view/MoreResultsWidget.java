@@ -12,13 +12,16 @@ import java.util.Locale;
 
 /**
  * Class MoreResultsWidget
- * Represents a widget that is shown when too many results were obtained to display at once.
+ * Represents a widget that is shown when too many results were obtained to display at once,
+ * or when there are more pages of results that can be loaded.
  *
  * @author Andrew Werner
  */
 public final class MoreResultsWidget implements IWidget {
     private JPanel contentPanel;
     private JLabel additionalResults;
+    private JLabel refineSearch;
+    private JButton loadMoreButton;
 
     /**
      * Creates a new object of class MoreResultsWidget
@@ -27,6 +30,24 @@ public final class MoreResultsWidget implements IWidget {
     public MoreResultsWidget(int additionalResults) {
         this.additionalResults.setText(
                 String.format("%d additional results.", additionalResults));
+        this.loadMoreButton.setVisible(false);
+    }
+
+    /**
+     * Creates a new object of class MoreResultsWidget with a button to load the next page of results.
+     * @param additionalResults the number of additional results that have not been loaded yet.
+     * @param exact false if the results were only counted up to a limit, so there may be more than additionalResults.
+     * @param loadMore called when the button is clicked.
+     */
+    public MoreResultsWidget(int additionalResults, boolean exact, Runnable loadMore) {
+        this.additionalResults.setText(String.format(
+                exact ? "%d additional results." : "At least %d additional results.", additionalResults));
+        this.refineSearch.setVisible(false);
+        this.loadMoreButton.addActionListener(e -> {
+            // Only load each page once
+            this.loadMoreButton.setEnabled(false);
+            loadMore.run();
+        });
     }
 
     @Override
@@ -50,18 +71,21 @@ public final class MoreResultsWidget implements IWidget {
      */
     private void $$$setupUI$$$() {
         contentPanel = new JPanel();
-        contentPanel.setLayout(new GridLayoutManager(2, 1, new Insets(10, 10, 10, 10), -1, -1));
+        contentPanel.setLayout(new GridLayoutManager(3, 1, new Insets(10, 10, 10, 10), -1, -1));
         contentPanel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createRaisedBevelBorder(), null, TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION, null, null));
         additionalResults = new JLabel();
         Font additionalResultsFont = this.$$$getFont$$$(null, Font.BOLD, 14, additionalResults.getFont());
         if (additionalResultsFont != null) additionalResults.setFont(additionalResultsFont);
         additionalResults.setText("X additional results.");
         contentPanel.add(additionalResults, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
-        final JLabel label1 = new JLabel();
-        Font label1Font = this.$$$getFont$$$(null, Font.BOLD, 14, label1.getFont());
-        if (label1Font != null) label1.setFont(label1Font);
-        label1.setText("Refine your search to display more.");
-        contentPanel.add(label1, new GridConstraints(1, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        refineSearch = new JLabel();
+        Font refineSearchFont = this.$$$getFont$$$(null, Font.BOLD, 14, refineSearch.getFont());
+        if (refineSearchFont != null) refineSearch.setFont(refineSearchFont);
+        refineSearch.setText("Refine your search to display more.");
+        contentPanel.add(refineSearch, new GridConstraints(1, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        loadMoreButton = new JButton();
+        loadMoreButton.setText("Load More");
+        contentPanel.add(loadMoreButton, new GridConstraints(2, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
     }
 
     /**
@@ -15,6 +15,7 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.util.ArrayList;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class PlayerView
@@ -91,12 +92,14 @@ public final class PlayerView implements IPlayerView {
             }
 
             this.saveVerificationChangesButton.setEnabled(false);
+            CompletableFuture<String> response = this.presenter.updateVerification(this.player, newStatus, newNote);
+            // Set once the presenter has been called, as it may redisplay the player straight away
             this.verificationUpdateLabel.setText("Saving Changes...");
 
-            String result = this.presenter.updateVerification(this.player, newStatus, newNote);
-
-            this.verificationUpdateLabel.setText(result);
-            this.saveVerificationChangesButton.setEnabled(true);
+            response.thenAccept(result -> {
+                this.verificationUpdateLabel.setText(result);
+                this.saveVerificationChangesButton.setEnabled(true);
+            });
         });
     }
 
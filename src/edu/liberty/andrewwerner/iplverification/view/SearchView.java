@@ -32,6 +32,7 @@ public final class SearchView implements ISearchView {
     private final ButtonGroup radioGroup;
     private ISearchPresenter presenter;
     private final IWidgetFactory factory;
+    private final ArrayList<IDataObject> results;
 
     /**
      * Creates an object of class SearchView
@@ -40,6 +41,7 @@ public final class SearchView implements ISearchView {
     public SearchView(IWidgetFactory factory) {
         this.presenter = null;
         this.factory = factory;
+        this.results = new ArrayList<>();
 
         this.radioGroup = new ButtonGroup();
         this.radioGroup.add(eventsRadioButton);
@@ -86,12 +88,33 @@ public final class SearchView implements ISearchView {
     }
 
     @Override
-    public void updateView(ArrayList<? extends IDataObject> data) {
+    public void updateView(ArrayList<? extends IDataObject> data, int additionalResults, boolean exactCount) {
         // Disabled stubbed API system
         this.importEventsButton.setEnabled(false);
         this.importResponse.setText("Importing of events is not available.");
 
-        JPanel wrapper = this.factory.buildWidgets(this.presenter, data, true);
+        this.results.clear();
+        this.results.addAll(data);
+        this.displayResults(additionalResults, exactCount);
+    }
+
+    @Override
+    public void appendToView(ArrayList<? extends IDataObject> data, int additionalResults, boolean exactCount) {
+        int position = this.resultsPanel.getVerticalScrollBar().getValue();
+        this.results.addAll(data);
+        this.displayResults(additionalResults, exactCount);
+        // The new widgets are laid out later, return to the user's place in the list once they are
+        SwingUtilities.invokeLater(() -> this.resultsPanel.getVerticalScrollBar().setValue(position));
+    }
+
+    /**
+     * Replace the displayed widgets with ones for every result loaded so far.
+     * @param additionalResults the number of results on later pages.
+     * @param exactCount false if additionalResults is only a lower bound.
+     */
+    private void displayResults(int additionalResults, boolean exactCount) {
+        JPanel wrapper = this.factory.buildWidgets(this.presenter, this.results, true,
+                additionalResults, exactCount, this.presenter::loadMoreResults);
         this.resultsPanel.setViewportView(wrapper);
         this.resultsPanel.getVerticalScrollBar().setUnitIncrement(10);
     }
@@ -14,6 +14,7 @@ import javax.swing.text.StyleContext;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class TeamView
@@ -64,12 +65,14 @@ public final class TeamView implements ITeamView {
             }
 
             this.saveVerificationChangesButton.setEnabled(false);
+            CompletableFuture<String> response = this.presenter.updateVerification(this.team, newStatus, newNote);
+            // Set once the presenter has been called, as it may redisplay the team straight away
             this.verificationUpdateLabel.setText("Saving changes...");
 
-            String result = this.presenter.updateVerification(this.team, newStatus, newNote);
-
-            this.verificationUpdateLabel.setText(result);
-            this.saveVerificationChangesButton.setEnabled(true);
+            response.thenAccept(result -> {
+                this.verificationUpdateLabel.setText(result);
+                this.saveVerificationChangesButton.setEnabled(true);
+            });
         });
     }
 
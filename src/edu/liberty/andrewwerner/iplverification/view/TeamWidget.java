@@ -12,7 +12,6 @@ import javax.swing.plaf.FontUIResource;
 import javax.swing.text.StyleContext;
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Locale;
 
 /**
@@ -77,7 +76,6 @@ public final class TeamWidget implements IWidget {
         if (roster == null) {
             throw new IllegalStateException("Unable to access team's roster.");
         }
-        Collections.sort(roster);
 
         JLabel[] labels = {playerLabel1, playerLabel2, playerLabel3, playerLabel4,
                 playerLabel5, playerLabel6, playerLabel7, playerLabel8};
@@ -48,6 +48,41 @@ public final class WidgetFactory implements IWidgetFactory {
         return wrapper;
     }
 
+    /**
+     * Create widgets from a paged list of data objects.
+     * Every loaded object gets a widget, as only the pages the user asked for have been loaded.
+     * @param presenter the presenter data objects can refer to when buttons are clicked.
+     * @param data the list of data objects.
+     * @param displayParents should parent information for teams and players be shown?
+     * @param additionalResults the number of results not loaded yet, 0 if there are no more pages.
+     * @param exactCount false if additionalResults is only a lower bound.
+     * @param loadMore called when the "load more" button is clicked.
+     * @return a JPanel containing IWidgets.
+     * @param <T> type IDataObject or subclasses.
+     */
+    @Override
+    public <T extends IDataObject> JPanel buildWidgets(IPresenter presenter, ArrayList<T> data, boolean displayParents,
+                                                       int additionalResults, boolean exactCount,
+                                                       Runnable loadMore) {
+        if (data.isEmpty()) {
+            return this.buildWidgets(presenter, data, displayParents);
+        }
+
+        JPanel wrapper = new JPanel();
+        // + 1 so the "load more" widget can fit.
+        wrapper.setLayout(new GridLayout(data.size() + (additionalResults > 0 ? 1 : 0), 1));
+
+        for (T dataObject : data) {
+            wrapper.add(this.makeWidget(presenter, dataObject, displayParents).getContentPanel());
+        }
+
+        if (additionalResults > 0) {
+            wrapper.add(new MoreResultsWidget(additionalResults, exactCount, loadMore).getContentPanel());
+        }
+
+        return wrapper;
+    }
+
     /*
      * Helper Methods
      */
@@ -0,0 +1,202 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.*;
+
+/**
+ * Class BenchmarkData
+ * Creates a database of generated events, teams, and players for DatabaseBenchmark,
+ * with the schema of verification.sql.
+ * Every event has 100 teams of 6 players, so the number of roster rows asked for sets the number of events.
+ * There are a tenth as many teams and a sixtieth as many players as roster rows, so each team and player
+ * takes part in several events. Names and ids are generated the same way on every run, so runs can be compared.
+ * Run it from an empty directory, which becomes the database's home:
+ * java -Dderby.system.home=DIR -cp CLASSES:derby.jar edu.liberty.andrewwerner.iplverification.model.BenchmarkData
+ * ROSTER_ROWS path/to/verification.sql
+ */
+public final class BenchmarkData {
+    static final int TEAMS_PER_EVENT = 100;
+    static final int PLAYERS_PER_TEAM = 6;
+    // Events start six hours apart from this time, in milliseconds since the epoch (2024-01-01 00:00 UTC)
+    private static final long FIRST_START_MILLIS = 1704067200000L;
+    private static final long START_INTERVAL_MILLIS = 6 * 3600000L;
+    // Rows inserted per batch, and batches per transaction
+    private static final int BATCH_SIZE = 10000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Expected the number of roster rows and the path to verification.sql.");
+            System.exit(2);
+        }
+
+        int rosterRows = Integer.parseInt(args[0]);
+        int events = Math.max(rosterRows / (TEAMS_PER_EVENT * PLAYERS_PER_TEAM), 1);
+        int teams = Math.max(events * TEAMS_PER_EVENT / 10, TEAMS_PER_EVENT);
+        int players = Math.max(events * TEAMS_PER_EVENT * PLAYERS_PER_TEAM / 60, PLAYERS_PER_TEAM);
+
+        long started = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection("jdbc:derby:verification;create=true",
+                "veriftool", "csis643")) {
+            connection.setAutoCommit(false);
+            createTables(connection, new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8));
+            insertEvents(connection, events);
+            insertIds(connection, "INSERT INTO teams (team_id, remote_id, url) VALUES (?, ?, '')", "t", teams);
+            insertIds(connection, "INSERT INTO players (player_id, remote_id, url) VALUES (?, ?, '')", "p", players);
+            insertRosters(connection, events, teams, players);
+        }
+
+        try {
+            DriverManager.getConnection("jdbc:derby:;shutdown=true");
+        } catch (SQLException e) {
+            // Derby always reports a successful shutdown as an exception
+        }
+
+        System.out.printf("Created %d events, %d teams, %d players, and %d roster rows in %.0f s.%n", events, teams,
+            players, (long) events * TEAMS_PER_EVENT * PLAYERS_PER_TEAM, (System.nanoTime() - started) / 1e9);
+    }
+
+    /**
+     * Get the name of a generated team.
+     * @param teamId the team's id.
+     * @return the team's name.
+     */
+    static String getTeamName(int teamId) {
+        return "Team " + teamId + " " + (char) ('a' + teamId % 26);
+    }
+
+    /**
+     * Get the name of a generated player, which starts with one of 26 letters so searches can match a share of them.
+     * @param playerId the player's id.
+     * @return the player's name.
+     */
+    static String getPlayerName(int playerId) {
+        return (char) ('a' + playerId % 26) + "Player" + playerId;
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Run the statements of verification.sql that create its tables, indexes, and triggers.
+     * @param connection the connection to the new database.
+     * @param script the contents of verification.sql.
+     */
+    private static void createTables(Connection connection, String script) throws SQLException {
+        String statements = script.substring(script.indexOf("-- Create tables"),
+            script.indexOf("-- Insert statements"));
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements.split(";")) {
+                sql = sql.replaceAll("(?m)^--.*$", "").trim();
+                if (!sql.isEmpty()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    /**
+     * Insert the events, each starting six hours after the one before.
+     * @param connection the connection to the database.
+     * @param events the number of events.
+     */
+    private static void insertEvents(Connection connection, int events) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO events " +
+                "(event_id, remote_id, url, name, startDate, teamCount) VALUES (?, ?, '', ?, ?, ?)")) {
+            for (int eventId = 1; eventId <= events; eventId++) {
+                statement.setInt(1, eventId);
+                statement.setString(2, "e" + eventId);
+                statement.setString(3, "Event " + eventId);
+                statement.setTimestamp(4, new Timestamp(FIRST_START_MILLIS + eventId * START_INTERVAL_MILLIS));
+                statement.setInt(5, TEAMS_PER_EVENT);
+                addBatch(connection, statement, eventId);
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+    }
+
+    /**
+     * Insert the rows of the teams or players table, which hold only an id, a remote id, and a url.
+     * @param connection the connection to the database.
+     * @param sql the insert statement, taking the id and remote id.
+     * @param prefix the prefix of each remote id.
+     * @param count the number of rows.
+     */
+    private static void insertIds(Connection connection, String sql, String prefix, int count) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int id = 1; id <= count; id++) {
+                statement.setInt(1, id);
+                statement.setString(2, prefix + id);
+                addBatch(connection, statement, id);
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+    }
+
+    /**
+     * Register teams for every event and fill in their rosters.
+     * Each event's teams are a run of consecutive team ids, starting further along for each event,
+     * and each team's players are spread over the players table.
+     * @param connection the connection to the database.
+     * @param events the number of events.
+     * @param teams the number of teams.
+     * @param players the number of players.
+     */
+    private static void insertRosters(Connection connection, int events, int teams, int players) throws SQLException {
+        try (
+            PreparedStatement eventTeams = connection.prepareStatement("INSERT INTO eventTeams (event_id, team_id, " +
+                "name, verification_status, verification_note, dropped, reg_order) VALUES (?, ?, ?, 0, NULL, 0, ?)");
+            PreparedStatement rosters = connection.prepareStatement("INSERT INTO rosters (event_id, team_id, " +
+                "player_id, name, verification_status, verification_note, dropped) VALUES (?, ?, ?, ?, 0, NULL, 0)")
+        ) {
+            int rows = 0;
+            for (int eventId = 1; eventId <= events; eventId++) {
+                for (int order = 1; order <= TEAMS_PER_EVENT; order++) {
+                    int teamId = (eventId * 37 + order) % teams + 1;
+                    eventTeams.setInt(1, eventId);
+                    eventTeams.setInt(2, teamId);
+                    eventTeams.setString(3, getTeamName(teamId));
+                    eventTeams.setInt(4, order);
+                    eventTeams.addBatch();
+
+                    for (int slot = 0; slot < PLAYERS_PER_TEAM; slot++) {
+                        int playerId = ((teamId * PLAYERS_PER_TEAM + slot) * 7 + eventId) % players + 1;
+                        rosters.setInt(1, eventId);
+                        rosters.setInt(2, teamId);
+                        rosters.setInt(3, playerId);
+                        rosters.setString(4, getPlayerName(playerId));
+                        rosters.addBatch();
+                        rows++;
+                    }
+                }
+
+                // Teams must be inserted before their rosters
+                if (rows >= BATCH_SIZE || eventId == events) {
+                    eventTeams.executeBatch();
+                    rosters.executeBatch();
+                    connection.commit();
+                    rows = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the current row to a batch, inserting and committing the batch every BATCH_SIZE rows.
+     * @param connection the connection to the database.
+     * @param statement the insert statement.
+     * @param row the number of rows added so far, including this one.
+     */
+    private static void addBatch(Connection connection, PreparedStatement statement, int row) throws SQLException {
+        statement.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.sql.*;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Class DatabaseBenchmark
+ * Times Database against a database created by BenchmarkData, along with the queries it replaced,
+ * which are run directly through JDBC against the same data so the two can be compared on one machine.
+ * Run it with the database's home directory, after creating it with BenchmarkData:
+ * java -Dderby.system.home=DIR -cp CLASSES:derby.jar edu.liberty.andrewwerner.iplverification.model.DatabaseBenchmark
+ * SECTION [ROUNDS]
+ * Sections:
+ * keys - reading an event's page of teams and rosters, and the rosters of teams in many events, by their keys.
+ * search - prefix searches of event, team, and player names, on LOWER(name) and on the indexed search_name columns.
+ * rows - building players, with their teams and events, from the rows of a player query, reading each column
+ * by name and by a position looked up once.
+ * Each round uses a new Database, so nothing is served from its object or query caches, but Derby's page cache is
+ * shared by every round, so the first round of each measurement is usually the slowest.
+ * The replaced key lookups scan whole tables, taking minutes on a large database, so they are only run once.
+ */
+public final class DatabaseBenchmark {
+    private static final int DEFAULT_ROUNDS = 3;
+    private static final int LEGACY_ROUNDS = 1;
+    // Teams read at once when reading rosters of teams in many events, a page of search results
+    private static final int TEAM_PAGE_SIZE = 128;
+    // Key expressions the queries replaced by integer id predicates compared against full id strings, such as "1:2:"
+    private static final String LEGACY_EVENT_KEY = "TRIM(CAST(event_id AS CHAR(10))) || '::'";
+    private static final String LEGACY_TEAM_KEY = "TRIM(CAST(%1$sevent_id AS CHAR(10))) || ':' || " +
+        "TRIM(CAST(%1$steam_id AS CHAR(10))) || ':'";
+    private static final String LEGACY_PLAYER_KEY = "TRIM(CAST(%1$sevent_id AS CHAR(10))) || ':' || " +
+        "TRIM(CAST(%1$steam_id AS CHAR(10))) || ':' || TRIM(CAST(%1$splayer_id AS CHAR(10)))";
+    // Name searches timed by the search section: table, its primary key columns, and the prefix searched for
+    private static final String[][] NAME_SEARCHES = {
+        {"events", "event_id", "event 12"},
+        {"eventTeams", "event_id, team_id", "team 123"},
+        {"rosters", "event_id, team_id, player_id", "aplayer12"},
+        {"rosters", "event_id, team_id, player_id", "qplayer3006"}
+    };
+    // The columns and joins of Database's player query, read by the rows section
+    private static final String PLAYER_QUERY = "SELECT e.event_id, e.remote_id AS event_remote_id, " +
+        "e.url AS event_url, e.name AS event_name, e.startDate, e.teamCount, et.team_id, " +
+        "t.remote_id AS team_remote_id, t.url AS team_url, et.name AS team_name, et.reg_order, " +
+        "et.dropped AS team_dropped, et.verification_status AS team_verification_status, " +
+        "et.verification_note AS team_verification_note, r.player_id, p.remote_id AS player_remote_id, " +
+        "p.url AS player_url, r.name AS player_name, r.dropped AS player_dropped, " +
+        "r.verification_status AS player_verification_status, r.verification_note AS player_verification_note " +
+        "FROM rosters r INNER JOIN players p ON r.player_id = p.player_id " +
+        "INNER JOIN eventTeams et ON r.event_id = et.event_id AND r.team_id = et.team_id " +
+        "INNER JOIN teams t ON r.team_id = t.team_id " +
+        "INNER JOIN events e ON r.event_id = e.event_id ";
+    // Players whose rows are built by the rows section
+    private static final String ROWS_QUERY = "aplayer1";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Expected a section to run: keys, search, or rows.");
+            System.exit(2);
+        }
+
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        try (Connection connection = DriverManager.getConnection("jdbc:derby:verification", "veriftool", "csis643")) {
+            System.out.printf("%d events, %d event teams, %d roster rows%n", count(connection, "events"),
+                count(connection, "eventTeams"), count(connection, "rosters"));
+            switch (args[0]) {
+                case "keys":
+                    benchmarkKeyLookups(connection, rounds);
+                    break;
+                case "search":
+                    benchmarkNameSearches(connection, rounds);
+                    break;
+                case "rows":
+                    benchmarkRowMapping(connection, rounds);
+                    break;
+                default:
+                    System.err.println("Unknown section: " + args[0]);
+                    System.exit(2);
+            }
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Time reading teams and rosters by their keys, with integer id predicates and with the composite string keys
+     * they replaced. An event page is getEventTeams, populateRosters, and getTeamMembers for one event, as loading
+     * the event view and opening one of its teams does. Before, that ran each key lookup as a full table scan.
+     * @param connection a connection to the database, used for the replaced queries.
+     * @param rounds the number of times to repeat each measurement.
+     */
+    private static void benchmarkKeyLookups(Connection connection, int rounds) throws SQLException {
+        int eventId = count(connection, "events") / 2 + 1;
+        ArrayList<String> eventTeamKeys = readKeys(connection, "SELECT event_id, team_id FROM eventTeams " +
+            "WHERE event_id = " + eventId + " ORDER BY reg_order");
+        measure("event " + eventId + " page, composite string keys", LEGACY_ROUNDS, "ms", () -> {
+            long started = System.nanoTime();
+            readLegacyTeams(connection, eventTeamKeys);
+            readLegacyRosters(connection, eventTeamKeys);
+            readLegacyRosters(connection, eventTeamKeys.subList(0, 1));
+            return System.nanoTime() - started;
+        });
+        measure("event " + eventId + " page, integer id predicates", rounds, "ms", () -> {
+            Database database = new Database(new APIConnectorStub());
+            try {
+                IEvent event = findEvent(database, "Event " + eventId);
+                long started = System.nanoTime();
+                ArrayList<ITeam> teams = database.getEventTeams(event, "", null, true);
+                database.populateRosters(teams);
+                database.getTeamMembers(teams.get(0));
+                return System.nanoTime() - started;
+            } finally {
+                database.close();
+            }
+        });
+
+        // A page of team search results, spread over many events
+        ArrayList<String> teamKeys = readKeys(connection, "SELECT event_id, team_id FROM eventTeams " +
+            "WHERE search_name LIKE 'team 1%' ORDER BY search_name, event_id, team_id " +
+            "FETCH FIRST " + TEAM_PAGE_SIZE + " ROWS ONLY");
+        System.out.printf("%d teams in %d events%n", teamKeys.size(),
+            teamKeys.stream().map(key -> key.substring(0, key.indexOf(':'))).distinct().count());
+        measure(TEAM_PAGE_SIZE + " rosters, composite string keys", LEGACY_ROUNDS, "ms", () -> {
+            long started = System.nanoTime();
+            readLegacyRosters(connection, teamKeys);
+            return System.nanoTime() - started;
+        });
+        measure(TEAM_PAGE_SIZE + " rosters, integer id predicates", rounds, "ms", () -> {
+            Database database = new Database(new APIConnectorStub());
+            try {
+                ArrayList<ITeam> teams = database.searchTeams("team 1", TEAM_PAGE_SIZE, null).getItems();
+                long started = System.nanoTime();
+                database.populateRosters(teams);
+                return System.nanoTime() - started;
+            } finally {
+                database.close();
+            }
+        });
+    }
+
+    /**
+     * Time prefix searches of names, filtering on LOWER(name), which Derby can only answer by computing it for
+     * every row of the table, and on the search_name columns, which it answers with a range scan of their index.
+     * Both read the primary keys of every matching row, so only the filter differs.
+     * @param connection a connection to the database.
+     * @param rounds the number of times to repeat each measurement.
+     */
+    private static void benchmarkNameSearches(Connection connection, int rounds) {
+        for (String[] search : NAME_SEARCHES) {
+            String label = search[0] + " \"" + search[2] + "\"";
+            String select = "SELECT " + search[1] + " FROM " + search[0] + " WHERE ";
+            int[] matched = new int[2];
+            measure(label + ", LOWER(name) LIKE", rounds, "ms", () -> {
+                long started = System.nanoTime();
+                matched[0] = readAll(connection, select + "LOWER(name) LIKE ?", search[2] + "%");
+                return System.nanoTime() - started;
+            });
+            measure(label + ", search_name LIKE", rounds, "ms", () -> {
+                long started = System.nanoTime();
+                matched[1] = readAll(connection, select + "search_name LIKE ? ESCAPE '\\'", search[2] + "%");
+                return System.nanoTime() - started;
+            });
+            if (matched[0] != matched[1]) {
+                throw new IllegalStateException(label + " matched " + matched[0] + " rows by LOWER(name) and " +
+                    matched[1] + " by search_name");
+            }
+            System.out.printf("%d rows%n", matched[1]);
+        }
+    }
+
+    /**
+     * Time building players, along with their teams and events, from the rows of a player query, the way
+     * loadPlayers did before RowMapper, looking up every column by name on every row, and with RowMapper,
+     * which looks up each column's position once. Both read the same columns and build the same objects,
+     * sharing events and teams read by earlier rows, so only how columns are found differs.
+     * Also times Database.searchPlayers for the same players, reading their keys from the name index.
+     * @param connection a connection to the database.
+     * @param rounds the number of times to repeat each measurement.
+     */
+    private static void benchmarkRowMapping(Connection connection, int rounds) throws SQLException {
+        String sql = PLAYER_QUERY + "WHERE r.search_name LIKE '" + ROWS_QUERY + "%'";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            // Read once first, so both are timed with the rows in Derby's page cache
+            int rows = mapByName(statement);
+            measure("players matching \"" + ROWS_QUERY + "\", columns by name", rounds, "us/row", () -> {
+                long started = System.nanoTime();
+                int mapped = mapByName(statement);
+                return perRow(System.nanoTime() - started, mapped);
+            });
+            measure("players matching \"" + ROWS_QUERY + "\", RowMapper", rounds, "us/row", () -> {
+                long started = System.nanoTime();
+                int mapped = mapByPosition(statement);
+                return perRow(System.nanoTime() - started, mapped);
+            });
+            System.out.printf("%d rows%n", rows);
+        }
+
+        Database database = new Database(new APIConnectorStub());
+        try {
+            database.enableNameIndex();
+            while (database.getNameIndexStatistics().size() < 3) {
+                Thread.sleep(100);
+            }
+            measure("searchPlayers \"" + ROWS_QUERY + "\", name index", rounds, "us/row", () -> {
+                long started = System.nanoTime();
+                int found = database.searchPlayers(ROWS_QUERY).size();
+                return perRow(System.nanoTime() - started, found);
+            });
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Error while waiting for the name index: ", e);
+        } finally {
+            database.close();
+        }
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Build players from the rows of a player query, finding every column by name, as loadPlayers did before.
+     * @param statement the player query.
+     * @return the number of rows read.
+     */
+    private static int mapByName(PreparedStatement statement) {
+        HashMap<IDataKey, IEvent> events = new HashMap<>();
+        HashMap<IDataKey, ITeam> teams = new HashMap<>();
+        int read = 0;
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                IDataKey eventKey = DataKey.ofEvent(rows.getInt("event_id"));
+                IEvent event = events.get(eventKey);
+                if (event == null) {
+                    event = new Event(rows.getInt("event_id"), rows.getString("event_remote_id"),
+                        rows.getString("event_name"), rows.getString("event_url"),
+                        rows.getTimestamp("startDate").toLocalDateTime().atZone(ZoneId.of("UTC")),
+                        rows.getInt("teamCount"));
+                    events.put(eventKey, event);
+                }
+
+                IDataKey teamKey = DataKey.ofTeam(rows.getInt("event_id"), rows.getInt("team_id"));
+                ITeam team = teams.get(teamKey);
+                if (team == null) {
+                    team = new Team(rows.getInt("team_id"), rows.getString("team_remote_id"),
+                        rows.getString("team_name"), rows.getString("team_url"), rows.getInt("reg_order"),
+                        rows.getInt("team_dropped") != 0, event,
+                        VerificationStatus.idToStatus(rows.getInt("team_verification_status")),
+                        rows.getString("team_verification_note"));
+                    teams.put(teamKey, team);
+                }
+
+                new Player(rows.getInt("player_id"), rows.getString("player_remote_id"),
+                    rows.getString("player_url"), rows.getString("player_name"), team,
+                    VerificationStatus.idToStatus(rows.getInt("player_verification_status")),
+                    rows.getString("player_verification_note"), rows.getInt("player_dropped") != 0);
+                read++;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while reading players by column name: ", e);
+        }
+
+        return read;
+    }
+
+    /**
+     * Build players from the rows of a player query with RowMapper, which finds each column's position once.
+     * @param statement the player query.
+     * @return the number of rows read.
+     */
+    private static int mapByPosition(PreparedStatement statement) {
+        HashMap<IDataKey, IEvent> events = new HashMap<>();
+        HashMap<IDataKey, ITeam> teams = new HashMap<>();
+        int read = 0;
+        try (ResultSet rows = statement.executeQuery()) {
+            RowMapper row = new RowMapper(rows);
+            while (rows.next()) {
+                IDataKey eventKey = DataKey.ofEvent(row.readEventId());
+                IEvent event = events.get(eventKey);
+                if (event == null) {
+                    event = row.readEvent();
+                    events.put(eventKey, event);
+                }
+
+                IDataKey teamKey = row.readTeamKey();
+                ITeam team = teams.get(teamKey);
+                if (team == null) {
+                    team = row.readTeam(event);
+                    teams.put(teamKey, team);
+                }
+
+                row.readPlayer(team);
+                read++;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while reading players with RowMapper: ", e);
+        }
+
+        return read;
+    }
+
+    /**
+     * Turn the time taken to read some rows into the time per row, scaled so measure prints it in microseconds.
+     * @param nanos the time taken, in nanoseconds.
+     * @param rows the number of rows read.
+     * @return the time per row, in picoseconds.
+     */
+    private static long perRow(long nanos, int rows) {
+        return rows == 0 ? 0 : nanos * 1000 / rows;
+    }
+
+    /**
+     * Run a query with one parameter and read every row.
+     * @param connection a connection to the database.
+     * @param sql the query.
+     * @param value the value of its parameter.
+     * @return the number of rows read.
+     */
+    private static int readAll(Connection connection, String sql, String value) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, value);
+            try (ResultSet rows = statement.executeQuery()) {
+                int read = 0;
+                while (rows.next()) {
+                    rows.getInt(1);
+                    read++;
+                }
+
+                return read;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while searching names: ", e);
+        }
+    }
+
+    /**
+     * Repeat a measurement, printing the time of each round and their median.
+     * @param label what is being measured.
+     * @param rounds the number of times to repeat it.
+     * @param unit the unit of the printed times, "ms" when rounds return nanoseconds,
+     * or "us/row" when they return picoseconds per row.
+     * @param round runs one round, returning how long the measured part took.
+     */
+    private static void measure(String label, int rounds, String unit, LongSupplier round) {
+        long[] times = new long[rounds];
+        StringBuilder each = new StringBuilder();
+        for (int i = 0; i < rounds; i++) {
+            times[i] = round.getAsLong();
+            each.append(i == 0 ? "" : ", ").append(String.format("%.1f", times[i] / 1e6));
+        }
+
+        Arrays.sort(times);
+        System.out.printf("%-60s median %10.1f %s  (%s)%n", label, times[rounds / 2] / 1e6, unit, each);
+    }
+
+    /**
+     * Find an event by its exact name.
+     * @param database the database to search.
+     * @param name the event's name.
+     * @return the event.
+     */
+    private static IEvent findEvent(Database database, String name) {
+        for (IEvent event : database.searchEvents(name)) {
+            if (event.getName().equals(name)) {
+                return event;
+            }
+        }
+
+        throw new IllegalStateException("No event named " + name + ", was the database created by BenchmarkData?");
+    }
+
+    /**
+     * Read teams, and their events, by the composite string keys getTeams compared against before.
+     * @param connection a connection to the database.
+     * @param teamKeys the full id of each team, such as "1:2:".
+     */
+    private static void readLegacyTeams(Connection connection, ArrayList<String> teamKeys) {
+        readLegacy(connection, "SELECT * FROM eventTeams et INNER JOIN teams t ON et.team_id = t.team_id WHERE " +
+            String.format(LEGACY_TEAM_KEY, "et."), teamKeys);
+        ArrayList<String> eventKeys = new ArrayList<>();
+        for (String key : teamKeys) {
+            String eventKey = key.substring(0, key.indexOf(':')) + "::";
+            if (!eventKeys.contains(eventKey)) {
+                eventKeys.add(eventKey);
+            }
+        }
+        readLegacy(connection, "SELECT * FROM events WHERE " + LEGACY_EVENT_KEY, eventKeys);
+    }
+
+    /**
+     * Read the rosters of teams by composite string keys, as populateRosters and getTeamMembers did before:
+     * the teams' player keys, the teams themselves, then the players by their keys.
+     * @param connection a connection to the database.
+     * @param teamKeys the full id of each team, such as "1:2:".
+     */
+    private static void readLegacyRosters(Connection connection, List<String> teamKeys) {
+        ArrayList<String> playerKeys = new ArrayList<>();
+        String sql = "SELECT event_id, team_id, player_id FROM rosters WHERE " + String.format(LEGACY_TEAM_KEY, "");
+        try (
+            PreparedStatement statement = prepareLegacy(connection, sql, teamKeys);
+            ResultSet rows = statement.executeQuery()
+        ) {
+            while (rows.next()) {
+                playerKeys.add(rows.getString("event_id") + ":" + rows.getString("team_id") + ":" +
+                    rows.getString("player_id"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while reading player keys: ", e);
+        }
+
+        readLegacyTeams(connection, new ArrayList<>(teamKeys));
+        readLegacy(connection, "SELECT * FROM rosters r INNER JOIN players p ON r.player_id = p.player_id WHERE " +
+            String.format(LEGACY_PLAYER_KEY, "r."), playerKeys);
+    }
+
+    /**
+     * Run a query comparing a composite string key against a list of full ids, reading every column of every row.
+     * @param connection a connection to the database.
+     * @param sql the query, ending with the key expression the ids are compared against.
+     * @param keys the full ids.
+     * @return the number of rows read.
+     */
+    private static int readLegacy(Connection connection, String sql, List<String> keys) {
+        try (
+            PreparedStatement statement = prepareLegacy(connection, sql, keys);
+            ResultSet rows = statement.executeQuery()
+        ) {
+            int columns = rows.getMetaData().getColumnCount();
+            int read = 0;
+            while (rows.next()) {
+                for (int column = 1; column <= columns; column++) {
+                    rows.getString(column);
+                }
+                read++;
+            }
+
+            return read;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error while reading by composite keys: ", e);
+        }
+    }
+
+    /**
+     * Prepare a query comparing a composite string key against a list of full ids.
+     * @param connection a connection to the database.
+     * @param sql the query, ending with the key expression the ids are compared against.
+     * @param keys the full ids.
+     * @return the prepared statement.
+     */
+    private static PreparedStatement prepareLegacy(Connection connection, String sql, List<String> keys)
+            throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql + " IN (" +
+            String.join(", ", Collections.nCopies(keys.size(), "?")) + ")");
+        for (int i = 0; i < keys.size(); i++) {
+            statement.setString(i + 1, keys.get(i));
+        }
+
+        return statement;
+    }
+
+    /**
+     * Read the full ids of teams, such as "1:2:".
+     * @param connection a connection to the database.
+     * @param sql a query selecting event_id and team_id.
+     * @return the full id of each team read.
+     */
+    private static ArrayList<String> readKeys(Connection connection, String sql) throws SQLException {
+        ArrayList<String> keys = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                keys.add(rows.getInt("event_id") + ":" + rows.getInt("team_id") + ":");
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Count the rows of a table.
+     * @param connection a connection to the database.
+     * @param table the table.
+     * @return the number of rows.
+     */
+    private static int count(Connection connection, String table) throws SQLException {
+        try (
+            Statement statement = connection.createStatement();
+            ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM " + table)
+        ) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+}
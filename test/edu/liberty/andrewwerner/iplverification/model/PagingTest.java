@@ -0,0 +1,140 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Class PagingTest
+ * Checks that reading searches and event team listings one page at a time, by continuation token,
+ * returns every row exactly once and in the same order as reading them all at once,
+ * both from the database and from the in-memory name index.
+ * Run it against a database set up with verification.sql, or created by BenchmarkData:
+ * java -Dderby.system.home=DIR -cp CLASSES:derby.jar edu.liberty.andrewwerner.iplverification.model.PagingTest
+ * Exits with a non-zero status if a check fails.
+ */
+public final class PagingTest {
+    private static final String[] QUERIES = {"", "s", "t", "team 1"};
+    private static final int[] PAGE_SIZES = {1, 7, 50};
+    // Event team listings checked, the first of them
+    private static final int EVENTS_LISTED = 6;
+    private static final long NAME_INDEX_TIMEOUT_MILLIS = 120000;
+
+    public static void main(String[] args) throws Exception {
+        Database database = new Database(new APIConnectorStub());
+        try {
+            searchPagesReturnEveryRowOnce(database);
+            eventTeamPagesReturnEveryTeamOnce(database);
+
+            database.enableNameIndex();
+            long deadline = System.currentTimeMillis() + NAME_INDEX_TIMEOUT_MILLIS;
+            while (database.getNameIndexStatistics().size() < 3) {
+                check(System.currentTimeMillis() < deadline, "name index not built in time");
+                Thread.sleep(100);
+            }
+            searchPagesReturnEveryRowOnce(database);
+        } finally {
+            database.close();
+        }
+
+        System.out.println("PagingTest passed.");
+        System.exit(0);
+    }
+
+    /**
+     * Page through event, team, and player searches, comparing the pages with the unpaged search.
+     * @param database the database to search.
+     */
+    private static void searchPagesReturnEveryRowOnce(Database database) {
+        for (String query : QUERIES) {
+            ArrayList<IEvent> events = database.searchEvents(query);
+            ArrayList<ITeam> teams = database.searchTeams(query);
+            ArrayList<IPlayer> players = database.searchPlayers(query);
+            for (int pageSize : PAGE_SIZES) {
+                checkPages("events matching \"" + query + "\"", events, pageSize,
+                    token -> database.searchEvents(query, pageSize, token));
+                checkPages("teams matching \"" + query + "\"", teams, pageSize,
+                    token -> database.searchTeams(query, pageSize, token));
+                checkPages("players matching \"" + query + "\"", players, pageSize,
+                    token -> database.searchPlayers(query, pageSize, token));
+            }
+        }
+    }
+
+    /**
+     * Page through the teams of the first few events, comparing the pages with the unpaged listing.
+     * @param database the database to read from.
+     */
+    private static void eventTeamPagesReturnEveryTeamOnce(Database database) {
+        ArrayList<IEvent> events = database.searchEvents("");
+        for (IEvent event : events.subList(0, Math.min(EVENTS_LISTED, events.size()))) {
+            ArrayList<ITeam> teams = database.getEventTeams(event, "", null, true);
+            for (int pageSize : PAGE_SIZES) {
+                checkPages("teams of " + event.getName(), teams, pageSize,
+                    token -> database.getEventTeams(event, "", null, true, pageSize, token));
+            }
+        }
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Read every page of a search by its continuation tokens and check the rows against the unpaged result.
+     * @param label what is being paged through, used in failure messages.
+     * @param expected the unpaged result, in order.
+     * @param pageSize the size of each page.
+     * @param pages reads the page after a token, or the first page for a null token.
+     * @param <T> the type of object on each page.
+     */
+    private static <T extends IDataObject> void checkPages(String label, ArrayList<T> expected, int pageSize,
+                                                           PageReader<T> pages) {
+        ArrayList<String> read = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        String token = null;
+        do {
+            Page<T> page = pages.read(token);
+            check(page.getItems().size() <= pageSize, label + ": page of " + page.getItems().size() + " rows");
+            check(page.getContinuationToken() == null || page.getItems().size() == pageSize,
+                label + ": short page before the last");
+            for (T item : page.getItems()) {
+                String id = item.getFullKey().getFullId();
+                check(seen.add(id), label + ": " + id + " read twice, " + pageSize + " at a time");
+                read.add(id);
+            }
+            token = page.getContinuationToken();
+        } while (token != null);
+
+        ArrayList<String> all = new ArrayList<>();
+        for (T item : expected) {
+            all.add(item.getFullKey().getFullId());
+        }
+        check(read.equals(all), label + ": " + read.size() + " rows read " + pageSize + " at a time, expected " +
+            all.size() + " in the same order");
+    }
+
+    /**
+     * Fail the test if a condition doesn't hold.
+     * @param condition the condition.
+     * @param message what went wrong if it doesn't.
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Interface PageReader
+     * Reads one page of results.
+     * @param <T> the type of object on each page.
+     */
+    private interface PageReader<T> {
+        /**
+         * Read the page after a continuation token.
+         * @param continuationToken the token of the previous page, or null for the first page.
+         * @return the page.
+         */
+        Page<T> read(String continuationToken);
+    }
+}
@@ -0,0 +1,152 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class QueryCacheTest
+ * Checks that invalidating an object removes exactly the cached results depending on it,
+ * and that a result loaded while it is invalidated isn't cached.
+ * Runs without a database, results are lists of data keys built in memory.
+ * Exits with a non-zero status if a check fails.
+ */
+public final class QueryCacheTest {
+    private static final long TIME_TO_LIVE_MILLIS = 60000;
+
+    public static void main(String[] args) throws Exception {
+        invalidatingTeamRemovesOnlyDependentResults();
+        loadRacingInvalidateIsNotCached();
+        System.out.println("QueryCacheTest passed.");
+    }
+
+    /**
+     * Invalidating the team 1:2: removes the listing of its event's teams and the searches holding it, its players,
+     * or its event, but keeps results for the team 1:20:, the event 12::, and their teams and players,
+     * whose full ids start with the same characters.
+     */
+    private static void invalidatingTeamRemovesOnlyDependentResults() {
+        QueryCache cache = new QueryCache("test", 16, TIME_TO_LIVE_MILLIS);
+        // Event team listings depend on their event, as Database.cachedPage adds it to the page's own keys
+        List<Object> eventOneTeams = load(cache, "getEventTeams", DataKey.ofEvent(1),
+            DataKey.ofTeam(1, 2), DataKey.ofTeam(1, 3));
+        List<Object> eventTwelveTeams = load(cache, "getEventTeams", DataKey.ofEvent(12),
+            DataKey.ofTeam(12, 2), DataKey.ofTeam(12, 20));
+        List<Object> teamSearch = load(cache, "searchTeams", DataKey.ofTeam(1, 2), DataKey.ofTeam(5, 7));
+        List<Object> siblingSearch = load(cache, "searchTeams", DataKey.ofTeam(1, 20), DataKey.ofTeam(12, 2));
+        List<Object> playerSearch = load(cache, "searchPlayers", DataKey.ofPlayer(1, 2, 4));
+        List<Object> siblingPlayerSearch = load(cache, "searchPlayers", DataKey.ofPlayer(1, 20, 4),
+            DataKey.ofPlayer(12, 2, 4));
+        List<Object> eventSearch = load(cache, "searchEvents", DataKey.ofEvent(1));
+        List<Object> otherEventSearch = load(cache, "searchEvents", DataKey.ofEvent(12));
+
+        cache.invalidate(DataKey.ofTeam(1, 2));
+
+        check(!isCached(cache, eventOneTeams), "listing of event 1's teams kept");
+        check(!isCached(cache, teamSearch), "search holding team 1:2: kept");
+        check(!isCached(cache, playerSearch), "search holding player 1:2:4 kept");
+        check(!isCached(cache, eventSearch), "search holding event 1:: kept");
+        check(isCached(cache, eventTwelveTeams), "listing of event 12's teams removed");
+        check(isCached(cache, siblingSearch), "search holding teams 1:20: and 12:2: removed");
+        check(isCached(cache, siblingPlayerSearch), "search holding players 1:20:4 and 12:2:4 removed");
+        check(isCached(cache, otherEventSearch), "search holding event 12:: removed");
+    }
+
+    /**
+     * A result whose load starts before an invalidation and finishes after it may already be stale,
+     * so it is returned to its caller but not cached, and the next caller loads it again.
+     */
+    private static void loadRacingInvalidateIsNotCached() throws Exception {
+        QueryCache cache = new QueryCache("test", 16, TIME_TO_LIVE_MILLIS);
+        List<Object> key = QueryCache.key("searchTeams", "team", 10, null);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread loader = new Thread(() -> {
+            try {
+                cache.get(key, true, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        invalidated.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return keys(DataKey.ofTeam(1, 2));
+                }, result -> result);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        loader.start();
+        loading.await();
+        cache.invalidate(DataKey.ofTeam(1, 2));
+        invalidated.countDown();
+        loader.join();
+
+        check(failure.get() == null, "load failed: " + failure.get());
+        cache.get(key, true, () -> {
+            loads.incrementAndGet();
+            return keys(DataKey.ofTeam(1, 2));
+        }, result -> result);
+        check(loads.get() == 2, "result loaded across an invalidation was cached");
+        check(isCached(cache, key), "result loaded after the invalidation wasn't cached");
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Load a result into the cache, keyed by the method and the keys it holds.
+     * @param cache the cache.
+     * @param method the name of the method the result is for.
+     * @param dependencies the keys the result holds and depends on.
+     * @return the result's key in the cache.
+     */
+    private static List<Object> load(QueryCache cache, String method, DataKey... dependencies) {
+        List<Object> key = QueryCache.key(method, Arrays.toString(dependencies));
+        cache.get(key, true, () -> keys(dependencies), result -> result);
+        return key;
+    }
+
+    /**
+     * Determines if a result is cached. If it isn't, an empty result is loaded and cached in its place.
+     * @param cache the cache.
+     * @param key the result's key.
+     * @return true if the cache answered without loading.
+     */
+    private static boolean isCached(QueryCache cache, List<Object> key) {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(key, true, () -> {
+            loads.incrementAndGet();
+            return new ArrayList<DataKey>();
+        }, result -> result);
+        return loads.get() == 0;
+    }
+
+    /**
+     * Build a result holding data keys.
+     * @param dataKeys the keys.
+     * @return a list of the keys.
+     */
+    private static ArrayList<DataKey> keys(DataKey... dataKeys) {
+        return new ArrayList<>(Arrays.asList(dataKeys));
+    }
+
+    /**
+     * Fail the test if a condition doesn't hold.
+     * @param condition the condition.
+     * @param message what went wrong if it doesn't.
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package edu.liberty.andrewwerner.iplverification.model;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Class RosterBatchTest
+ * Checks that rosters loaded by several threads at once are each read once and set in full,
+ * and that only the rosters asked for are loaded.
+ * Runs without a database, the loader builds players in memory. Exits with a non-zero status if a check fails.
+ */
+public final class RosterBatchTest {
+    private static final int THREADS = 8;
+    private static final int TEAMS = 64;
+    private static final int PLAYERS_PER_TEAM = 6;
+
+    public static void main(String[] args) throws Exception {
+        concurrentCallsReadEachRosterOnce();
+        failedLoadIsRetriedByWaitingCaller();
+        onlyRequestedRostersAreLoaded();
+        System.out.println("RosterBatchTest passed.");
+    }
+
+    /**
+     * Several threads populating the same teams, including a second instance of one team, at the same time.
+     */
+    private static void concurrentCallsReadEachRosterOnce() throws Exception {
+        ArrayList<ITeam> teams = createTeams(TEAMS);
+        // Another instance of the first team, read by a different query
+        teams.add(createTeam((Event) teams.get(0).getEvent(), 1));
+        ConcurrentHashMap<ITeam, AtomicInteger> reads = new ConcurrentHashMap<>();
+
+        runConcurrently(() -> RosterBatch.loadRosters(teams, (keys, claimed) -> {
+            pause();
+            return createPlayers(keys, claimed, reads);
+        }));
+
+        for (ITeam team : teams) {
+            check(reads.get(team) != null && reads.get(team).get() == 1, "roster of " + team.getName() +
+                " read " + reads.get(team) + " times");
+            check(team.getRoster().size() == PLAYERS_PER_TEAM, "roster of " + team.getName() + " has " +
+                team.getRoster().size() + " players");
+            for (IPlayer player : team.getRoster()) {
+                check(player.getTeam() == team, "player attached to another instance of " + team.getName());
+            }
+        }
+    }
+
+    /**
+     * A caller whose read fails gives up its claims, and a caller waiting for them loads the rosters instead.
+     */
+    private static void failedLoadIsRetriedByWaitingCaller() throws Exception {
+        ArrayList<ITeam> teams = createTeams(4);
+        ConcurrentHashMap<ITeam, AtomicInteger> reads = new ConcurrentHashMap<>();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        AtomicInteger errors = new AtomicInteger();
+        BiFunction<ArrayList<IDataKey>, IdMap<ITeam>, Collection<IPlayer>> loader = (keys, claimed) -> {
+            pause();
+            if (failed.compareAndSet(false, true)) {
+                throw new RuntimeException("Error while reading rosters: ", new IllegalStateException("cancelled"));
+            }
+            return createPlayers(keys, claimed, reads);
+        };
+
+        runConcurrently(() -> {
+            try {
+                RosterBatch.loadRosters(teams, loader);
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        });
+
+        check(errors.get() == 1, errors.get() + " callers failed");
+        for (ITeam team : teams) {
+            check(((IMutableTeam) team).isRosterLoaded(), "roster of " + team.getName() + " not loaded");
+            check(reads.get(team).get() == 1, "roster of " + team.getName() + " read " + reads.get(team) + " times");
+        }
+    }
+
+    /**
+     * Loading the rosters of some teams, such as the page being displayed, leaves the others without one,
+     * and asking those for their roster doesn't read it.
+     */
+    private static void onlyRequestedRostersAreLoaded() {
+        ArrayList<ITeam> teams = createTeams(4);
+        ConcurrentHashMap<ITeam, AtomicInteger> reads = new ConcurrentHashMap<>();
+        RosterBatch.loadRosters(teams.subList(0, 2), (keys, claimed) -> createPlayers(keys, claimed, reads));
+
+        for (int i = 0; i < teams.size(); i++) {
+            ITeam team = teams.get(i);
+            boolean requested = i < 2;
+            check((team.getRoster() != null) == requested, "roster of " + team.getName() +
+                (requested ? " not loaded" : " loaded without being requested"));
+        }
+        check(reads.size() == 2, reads.size() + " rosters read");
+    }
+
+    /*
+     * Helper Methods
+     */
+
+    /**
+     * Run a task on several threads, released at the same moment, and wait for all of them.
+     * @param task the task to run.
+     */
+    private static void runConcurrently(Runnable task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError("Caller failed", failure.get());
+        }
+    }
+
+    /**
+     * Build the players of each team asked for, as the database would, counting how often each team is read.
+     * @param keys the keys of the teams to read.
+     * @param claimed the instances of the teams to attach the players to.
+     * @param reads the number of times each team has been read.
+     * @return the players of every team.
+     */
+    private static Collection<IPlayer> createPlayers(ArrayList<IDataKey> keys, IdMap<ITeam> claimed,
+                                                     ConcurrentHashMap<ITeam, AtomicInteger> reads) {
+        ArrayList<IPlayer> players = new ArrayList<>();
+        for (IDataKey key : keys) {
+            ITeam team = claimed.get(IdMap.key(key));
+            reads.computeIfAbsent(team, t -> new AtomicInteger()).incrementAndGet();
+            for (int i = 1; i <= PLAYERS_PER_TEAM; i++) {
+                players.add(new Player(i, "p" + i, "", "Player " + i, team, VerificationStatus.Unverified, "",
+                    false));
+            }
+        }
+
+        return players;
+    }
+
+    /**
+     * Create teams in one event.
+     * @param count the number of teams.
+     * @return the teams.
+     */
+    private static ArrayList<ITeam> createTeams(int count) {
+        Event event = new Event(1, "e1", "Event", "", ZonedDateTime.now(), count);
+        ArrayList<ITeam> teams = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            teams.add(createTeam(event, i));
+        }
+
+        return teams;
+    }
+
+    /**
+     * Create a team.
+     * @param event the event the team is registered for.
+     * @param teamId the team's id.
+     * @return the team.
+     */
+    private static Team createTeam(Event event, int teamId) {
+        return new Team(teamId, "t" + teamId, "Team " + teamId, "", teamId, false, event,
+            VerificationStatus.Unverified, "");
+    }
+
+    /**
+     * Wait a moment, so other callers arrive while a roster is being read.
+     */
+    private static void pause() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fail the test if a condition doesn't hold.
+     * @param condition the condition.
+     * @param message what went wrong if it doesn't.
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -7,6 +7,11 @@
 
 -- Drop existing tables to wipe the slate clean.
 -- Will throw (ignorable) errors if the tables don't exist.
+DROP TRIGGER rosters_participation_insert;
+DROP TRIGGER rosters_participation_delete;
+DROP TRIGGER rosters_participation_update;
+DROP TRIGGER events_participation_update;
+DROP TABLE participation;
 DROP TABLE rosters;
 DROP TABLE players;
 DROP TABLE eventTeams;
@@ -19,6 +24,7 @@ CREATE TABLE events (
     remote_id varchar(10) NOT NULL,
     url varchar(100) NOT NULL,
     name varchar(50) NOT NULL,
+    search_name varchar(50) GENERATED ALWAYS AS (LOWER(name)),
     startDate TIMESTAMP NOT NULL,
     teamCount INT NOT NULL,
     PRIMARY KEY (event_id)
@@ -35,6 +41,7 @@ CREATE TABLE eventTeams (
     event_id INT NOT NULL,
     team_id INT NOT NULL,
     name varchar(50) NOT NULL,
+    search_name varchar(50) GENERATED ALWAYS AS (LOWER(name)),
     verification_status INT NOT NULL CHECK (verification_status between 0 and 4),
     verification_note varchar(1000),
     dropped INT NOT NULL CHECK (dropped between 0 and 1),
@@ -56,6 +63,7 @@ CREATE TABLE rosters (
     team_id INT NOT NULL,
     player_id INT NOT NULL,
     name varchar(50) NOT NULL,
+    search_name varchar(50) GENERATED ALWAYS AS (LOWER(name)),
     verification_status INT NOT NULL CHECK (verification_status between 0 and 4),
     verification_note varchar(1000),
     dropped INT NOT NULL CHECK (dropped between 0 and 1),
@@ -65,6 +73,47 @@ CREATE TABLE rosters (
     FOREIGN KEY (player_id) REFERENCES players (player_id)
 );
 
+-- Indexes for case-insensitive prefix searches by name.
+-- search_name is kept in sync with name by the database, so LIKE 'prefix%' on it can use these indexes.
+-- The primary key is included so paged searches can read rows in (search_name, primary key) order without sorting.
+CREATE INDEX events_search_name ON events (search_name, event_id);
+CREATE INDEX eventTeams_search_name ON eventTeams (search_name, event_id, team_id);
+CREATE INDEX rosters_search_name ON rosters (search_name, event_id, team_id, player_id);
+
+-- Index for finding events by start date, such as a player's participation in recent events.
+CREATE INDEX events_startDate ON events (startDate, event_id);
+
+-- Index for paged event searches, which list the newest events first, then by name and id.
+-- Pages are read in index order without sorting, checking each event's search_name as it goes.
+CREATE INDEX events_search_order ON events (startDate DESC, search_name, event_id);
+
+-- Every roster entry along with its event's start date, ordered by player and then date, so the events a player
+-- took part in during a window of time are found without joining rosters and events.
+-- Kept up to date by the triggers below, however rosters and events are changed. It can be rebuilt from rosters
+-- and checked against them with the Driver's --rebuild-participation and --check-participation options.
+CREATE TABLE participation (
+    player_id INT NOT NULL,
+    startDate TIMESTAMP NOT NULL,
+    event_id INT NOT NULL,
+    team_id INT NOT NULL,
+    PRIMARY KEY (player_id, startDate, event_id, team_id)
+);
+CREATE INDEX participation_event ON participation (event_id, team_id, player_id);
+
+CREATE TRIGGER rosters_participation_insert AFTER INSERT ON rosters REFERENCING NEW AS n FOR EACH ROW
+    INSERT INTO participation (player_id, startDate, event_id, team_id)
+        SELECT n.player_id, e.startDate, n.event_id, n.team_id FROM events e WHERE e.event_id = n.event_id;
+CREATE TRIGGER rosters_participation_delete AFTER DELETE ON rosters REFERENCING OLD AS o FOR EACH ROW
+    DELETE FROM participation WHERE event_id = o.event_id AND team_id = o.team_id AND player_id = o.player_id;
+CREATE TRIGGER rosters_participation_update AFTER UPDATE OF event_id, team_id, player_id ON rosters
+    REFERENCING OLD AS o NEW AS n FOR EACH ROW
+    UPDATE participation SET player_id = n.player_id, event_id = n.event_id, team_id = n.team_id,
+        startDate = (SELECT e.startDate FROM events e WHERE e.event_id = n.event_id)
+        WHERE event_id = o.event_id AND team_id = o.team_id AND player_id = o.player_id;
+CREATE TRIGGER events_participation_update AFTER UPDATE OF startDate ON events
+    REFERENCING OLD AS o NEW AS n FOR EACH ROW
+    UPDATE participation SET startDate = n.startDate WHERE event_id = n.event_id;
+
 -- Insert statements
 -- Events
 INSERT INTO events (event_id, remote_id, url, name, startDate, teamCount) VALUES (1, '815', 'https://sendou.ink/to/815/brackets', 'Low Ink December 2024', '2024-12-14 18:00:00', 28);